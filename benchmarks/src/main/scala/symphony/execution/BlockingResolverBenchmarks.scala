@@ -0,0 +1,72 @@
+package symphony.execution
+
+import org.apache.pekko.actor.*
+import org.openjdk.jmh.annotations.*
+import symphony.*
+import symphony.schema.*
+import symphony.schema.builder.ObjectBuilder
+
+import java.util.concurrent.TimeUnit
+import java.util.function.Supplier
+import scala.concurrent.*
+import scala.concurrent.duration.*
+
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+class BlockingResolverBenchmarks {
+  import BlockingResolverBenchmarks.*
+
+  implicit val actorSystem: ActorSystem = ActorSystem("symphonyBlockingResolverBenchmarks")
+
+  @TearDown
+  def shutdown(): Unit =
+    Await.result(actorSystem.terminate(), 5.seconds)
+
+  private def run(graphql: SymphonyQL): Unit = {
+    val future = graphql.runWith(SymphonyQLRequest(query))
+    Await.result(future, 1.minute)
+    ()
+  }
+
+  @Benchmark
+  def blockingOnCallingThread(): Unit = run(blocking)
+
+  @Benchmark
+  def blockingOnVirtualThreads(): Unit = run(virtualThreads)
+}
+
+object BlockingResolverBenchmarks {
+
+  final case class Row(id: Int)
+
+  final case class Query(rows: List[Row])
+
+  // every row runs a Java resolver that blocks for 1ms, as a JDBC call would
+  given Schema[Row] = ObjectBuilder
+    .newObject[Row]()
+    .name("Row")
+    .field[Supplier[String]](
+      _.name("value").schema(Schema.createFunctionUnit(Schema.StringSchema)).build(),
+      row =>
+        () => {
+          Thread.sleep(1)
+          s"row-${row.id}"
+        }
+    )
+    .build()
+
+  val query: String = "{ rows { value } }"
+
+  private def graphql(virtualThreads: Boolean): SymphonyQL = SymphonyQL
+    .newSymphonyQL()
+    .addQuery(Query(List.tabulate(100)(Row(_))), Schema.derived[Query])
+    .javaResolversOnVirtualThreads(virtualThreads)
+    .build()
+
+  val blocking: SymphonyQL       = graphql(virtualThreads = false)
+  val virtualThreads: SymphonyQL = graphql(virtualThreads = true)
+}
@@ -0,0 +1,69 @@
+package symphony.execution
+
+import org.apache.pekko.actor.*
+import org.openjdk.jmh.annotations.*
+import symphony.*
+
+import java.util.concurrent.TimeUnit
+import scala.concurrent.*
+import scala.concurrent.duration.*
+
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+class DocumentCacheBenchmarks {
+
+  implicit val actorSystem: ActorSystem = ActorSystem("symphonyDocumentCacheBenchmarks")
+
+  val simpleQuery: String =
+    """{
+          characters {
+            name
+            origin
+          }
+       }""".stripMargin
+
+  val fragmentQuery: String =
+    """query Characters($origin: Origin) {
+          earth: characters(origin: EARTH) {
+            ...CharacterFields
+          }
+          mars: characters(origin: $origin) {
+            ...CharacterFields
+          }
+          character(name: "Amos Burton") {
+            ...CharacterFields
+            nicknames
+          }
+       }
+
+       fragment CharacterFields on Character {
+         name
+         origin
+       }""".stripMargin
+
+  @TearDown
+  def shutdown(): Unit =
+    Await.result(actorSystem.terminate(), 5.seconds)
+
+  private def run(graphql: SymphonyQL, query: String): Unit = {
+    val future = graphql.runWith(SymphonyQLRequest(query))
+    Await.result(future, 1.minute)
+    ()
+  }
+
+  @Benchmark
+  def simpleUncached(): Unit = run(SymphonyScala.graphql, simpleQuery)
+
+  @Benchmark
+  def simpleCached(): Unit = run(SymphonyScala.cachedGraphql, simpleQuery)
+
+  @Benchmark
+  def fragmentUncached(): Unit = run(SymphonyScala.graphql, fragmentQuery)
+
+  @Benchmark
+  def fragmentCached(): Unit = run(SymphonyScala.cachedGraphql, fragmentQuery)
+}
@@ -0,0 +1,84 @@
+package symphony.execution
+
+import org.apache.pekko.actor.*
+import org.openjdk.jmh.annotations.*
+import symphony.*
+import symphony.cache.CacheSettings
+import symphony.schema.*
+import symphony.schema.builder.ObjectBuilder
+
+import java.util.concurrent.TimeUnit
+import scala.concurrent.*
+import scala.concurrent.duration.*
+
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+class ExecutionBenchmarks {
+  import ExecutionBenchmarks.*
+
+  implicit val actorSystem: ActorSystem = ActorSystem("symphonyExecutionBenchmarks")
+
+  @TearDown
+  def shutdown(): Unit =
+    Await.result(actorSystem.terminate(), 5.seconds)
+
+  private def run(query: String): Unit = {
+    val future = graphql.runWith(SymphonyQLRequest(query))
+    Await.result(future, 1.minute)
+    ()
+  }
+
+  @Benchmark
+  def deepPure(): Unit = run(deepQuery("children"))
+
+  @Benchmark
+  def deepFuture(): Unit = run(deepQuery("asyncChildren"))
+
+  @Benchmark
+  def wideSelection(): Unit = run("{ wide { field1 field25 field50 } }")
+}
+
+object ExecutionBenchmarks {
+
+  final case class Node(
+    id: Int,
+    name: String,
+    weight: Double,
+    children: List[Node],
+    asyncChildren: () => Future[List[Node]]
+  )
+
+  final case class Wide(id: Int)
+
+  final case class Query(root: Node, wide: List[Wide])
+
+  given Schema[Node] = Schema.derived[Node]
+
+  // 50 fields with non-trivial getters, of which wideSelection only selects 3
+  given Schema[Wide] = (1 to 50)
+    .foldLeft(ObjectBuilder.newObject[Wide]().name("Wide")) { (builder, i) =>
+      builder.field[String](_.name(s"field$i").schema(Schema.StringSchema).build(), wide => s"wide-${wide.id}-$i" * 8)
+    }
+    .build()
+
+  // 5 levels of 4 children, 1365 objects
+  private def node(id: Int, depth: Int): Node = {
+    val children = if (depth == 0) Nil else List.tabulate(4)(i => node(id * 4 + i + 1, depth - 1))
+    Node(id, s"node-$id", id / 10d, children, () => Future(children)(ExecutionContext.global))
+  }
+
+  val graphql: SymphonyQL = SymphonyQL
+    .newSymphonyQL()
+    .addQuery(Query(node(0, 5), List.tabulate(100)(Wide(_))), Schema.derived[Query])
+    .documentCache(CacheSettings.default)
+    .build()
+
+  def deepQuery(field: String): String = {
+    val selection = (1 to 5).foldLeft("id name weight")((nested, _) => s"id name weight $field { $nested }")
+    s"{ root { $selection } }"
+  }
+}
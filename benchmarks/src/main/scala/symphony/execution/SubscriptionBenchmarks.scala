@@ -0,0 +1,78 @@
+package symphony.execution
+
+import org.apache.pekko.NotUsed
+import org.apache.pekko.actor.*
+import org.apache.pekko.stream.scaladsl.*
+import org.openjdk.jmh.annotations.*
+import symphony.*
+import symphony.parser.SymphonyQLOutputValue.*
+import symphony.schema.*
+
+import java.util.concurrent.TimeUnit
+import scala.concurrent.*
+import scala.concurrent.duration.*
+
+/**
+ * Delivers `events` events of one subscription field to each of `subscribers` subscribers, with a source per
+ * subscriber or a source shared by all of them. Run with `-prof gc` to compare the memory allocated per delivery.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+class SubscriptionBenchmarks {
+
+  import SubscriptionBenchmarks.*
+
+  implicit val actorSystem: ActorSystem = ActorSystem("symphonySubscriptionBenchmarks")
+
+  @Param(Array("1", "10000"))
+  var subscribers: Int = 0
+
+  @Param(Array("false", "true"))
+  var shared: Boolean = false
+
+  val events: Int = 100
+
+  val query: String = "subscription { ticks { price symbol } }"
+
+  var graphql: SymphonyQL = scala.compiletime.uninitialized
+
+  @Setup
+  def setup(): Unit = {
+    val builder = SymphonyQL
+      .newSymphonyQL()
+      .addQuery(Query("1.0"), Schema.derived[Query])
+      .addSubscription(Ticker(Source.repeat(Tick(42, "ticker"))), Schema.derived[Ticker])
+    graphql = (if (shared) builder.sharedSubscriptions(256) else builder).build()
+  }
+
+  @TearDown
+  def shutdown(): Unit =
+    Await.result(actorSystem.terminate(), 5.seconds)
+
+  @Benchmark
+  def deliver(): Unit = {
+    implicit val ec: ExecutionContext = actorSystem.dispatcher
+    val delivered                     = Future.traverse(List.fill(subscribers)(query)) { query =>
+      graphql.runWith(SymphonyQLRequest(query)).flatMap { response =>
+        response.data match
+          case ObjectValue(List(_ -> StreamValue(stream))) => stream.take(events).runWith(Sink.ignore)
+          case other                                       => Future.failed(new IllegalStateException(other.toString))
+      }
+    }
+    Await.result(delivered, 10.minutes)
+    ()
+  }
+}
+
+object SubscriptionBenchmarks {
+
+  final case class Query(version: String)
+
+  final case class Tick(price: Int, symbol: String)
+
+  final case class Ticker(ticks: Source[Tick, NotUsed])
+}
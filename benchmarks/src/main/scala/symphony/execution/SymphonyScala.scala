@@ -1,6 +1,7 @@
 package symphony.execution
 
 import symphony.*
+import symphony.cache.CacheSettings
 import symphony.execution.Data.*
 
 import scala.concurrent.Future
@@ -17,13 +18,19 @@ object SymphonyScala {
     character: CharacterArgs => Future[Option[Character]]
   )
 
+  private val query = Query(
+    args => Future.successful(Data.characters.filter(c => args.origin.forall(c.origin == _))),
+    args => Future.successful(Data.characters.find(c => c.name == args.name))
+  )
+
   val graphql: SymphonyQL = SymphonyQL
     .newSymphonyQL()
-    .query(
-      Query(
-        args => Future.successful(Data.characters.filter(c => args.origin.forall(c.origin == _))),
-        args => Future.successful(Data.characters.find(c => c.name == args.name))
-      )
-    )
+    .query(query)
+    .build()
+
+  val cachedGraphql: SymphonyQL = SymphonyQL
+    .newSymphonyQL()
+    .query(query)
+    .documentCache(CacheSettings.default)
     .build()
 }
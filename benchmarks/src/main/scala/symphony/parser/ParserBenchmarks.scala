@@ -0,0 +1,83 @@
+package symphony.parser
+
+import org.openjdk.jmh.annotations.*
+
+import java.util.concurrent.TimeUnit
+
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+class ParserBenchmarks {
+
+  val smallQuery: String =
+    """{
+          characters {
+            name
+            origin
+          }
+       }""".stripMargin
+
+  val mediumQuery: String =
+    """query Characters($origin: Origin, $name: String! = "Amos Burton") {
+          earth: characters(origin: EARTH) {
+            ...CharacterFields
+          }
+          mars: characters(origin: $origin) {
+            ...CharacterFields
+            role {
+              ... on Captain { shipName }
+              ... on Pilot { shipName }
+              ... on Engineer { shipName }
+              ... on Mechanic { shipName }
+            }
+          }
+          character(name: $name) @include(if: true) {
+            ...CharacterFields
+            nicknames
+          }
+       }
+
+       fragment CharacterFields on Character {
+         name
+         origin
+       }""".stripMargin
+
+  // ~50KB of aliased fields with arguments and nested selections
+  val largeQuery: String = {
+    val builder = new StringBuilder("query Large($limit: Int = 10) {\n")
+    var i       = 0
+    while (builder.length < 50 * 1024) {
+      builder.append(
+        s"""  alias$i: characters(origin: EARTH, limit: $$limit, filter: {name: "name$i", tags: ["tag", "other"]}) {
+           |    name
+           |    nicknames
+           |    role { ... on Captain { shipName } }
+           |  }
+           |""".stripMargin
+      )
+      i += 1
+    }
+    builder.append("}").toString
+  }
+
+  @Benchmark
+  def smallParboiled(): Any = SymphonyQLParser.parseQuery(smallQuery, ParserBackend.Parboiled)
+
+  @Benchmark
+  def smallRecursiveDescent(): Any = SymphonyQLParser.parseQuery(smallQuery, ParserBackend.RecursiveDescent)
+
+  @Benchmark
+  def mediumParboiled(): Any = SymphonyQLParser.parseQuery(mediumQuery, ParserBackend.Parboiled)
+
+  @Benchmark
+  def mediumRecursiveDescent(): Any = SymphonyQLParser.parseQuery(mediumQuery, ParserBackend.RecursiveDescent)
+
+  @Benchmark
+  def largeParboiled(): Any = SymphonyQLParser.parseQuery(largeQuery, ParserBackend.Parboiled)
+
+  @Benchmark
+  def largeRecursiveDescent(): Any = SymphonyQLParser.parseQuery(largeQuery, ParserBackend.RecursiveDescent)
+}
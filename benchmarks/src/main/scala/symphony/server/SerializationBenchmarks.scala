@@ -0,0 +1,54 @@
+package symphony.server
+
+import org.apache.pekko.util.ByteString
+import org.openjdk.jmh.annotations.*
+import spray.json.*
+import symphony.*
+import symphony.parser.*
+
+import java.util.concurrent.TimeUnit
+
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+class SerializationBenchmarks extends JsonFormats {
+  import SerializationBenchmarks.*
+
+  @Benchmark
+  def sprayJson(): ByteString = ByteString(largeResponse.toJson.toString)
+
+  @Benchmark
+  def outputWriter(): ByteString = JsonOutputWriter.write(largeResponse.toOutputValue)
+
+  @Benchmark
+  def outputWriterChunks(): Int = JsonOutputWriter.chunks(largeResponse.toOutputValue).foldLeft(0)(_ + _.size)
+}
+
+object SerializationBenchmarks {
+
+  private def character(i: Int): SymphonyQLOutputValue =
+    SymphonyQLOutputValue.ObjectValue(
+      List(
+        "id"        -> SymphonyQLValue.IntValue(i),
+        "name"      -> SymphonyQLValue.StringValue(s"Character \"$i\" of the Rocinante"),
+        "origin"    -> SymphonyQLValue.EnumValue("BELT"),
+        "height"    -> SymphonyQLValue.FloatValue(1.75 + i % 10 / 100.0),
+        "alive"     -> SymphonyQLValue.BooleanValue(i % 2 == 0),
+        "ship"      -> SymphonyQLValue.NullValue,
+        "nicknames" -> SymphonyQLOutputValue.ListValue(
+          List(SymphonyQLValue.StringValue(s"nick-$i"), SymphonyQLValue.StringValue("Ñaomi ☄"))
+        )
+      )
+    )
+
+  // ~1MB once serialized
+  val largeResponse: SymphonyQLResponse[SymphonyQLError] = SymphonyQLResponse(
+    SymphonyQLOutputValue.ObjectValue(
+      List("characters" -> SymphonyQLOutputValue.ListValue(List.tabulate(6000)(character)))
+    ),
+    Nil
+  )
+}
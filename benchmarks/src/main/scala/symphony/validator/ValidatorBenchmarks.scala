@@ -0,0 +1,99 @@
+package symphony.validator
+
+import org.apache.pekko.actor.*
+import org.openjdk.jmh.annotations.*
+import symphony.*
+import symphony.execution.SymphonyScala
+import symphony.parser.*
+import symphony.parser.adt.Document
+import symphony.schema.*
+
+import java.util.concurrent.TimeUnit
+import scala.concurrent.*
+import scala.concurrent.duration.*
+
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+class ValidatorBenchmarks {
+
+  implicit val actorSystem: ActorSystem = ActorSystem("symphonyValidatorBenchmarks")
+
+  val query: String =
+    """query Characters($origin: Origin, $withNicknames: Boolean!) {
+          earth: characters(origin: EARTH) {
+            ...CharacterFields
+          }
+          mars: characters(origin: $origin) {
+            ...CharacterFields
+            ... on Character {
+              nicknames @include(if: $withNicknames)
+            }
+          }
+          character(name: "Amos Burton") {
+            ...CharacterFields
+            nicknames
+          }
+       }
+
+       fragment CharacterFields on Character {
+         __typename
+         name
+         origin
+       }""".stripMargin
+
+  val document: Document =
+    SymphonyQLParser.parseQuery(query).fold(throw _, identity)
+
+  val schema: ValidationSchema = {
+    val queryType = summon[Schema[SymphonyScala.Query]].lazyType()
+    new ValidationSchema(queryType, None, None, RootType(queryType, None, None).types, Introspector.directives)
+  }
+
+  @TearDown
+  def shutdown(): Unit =
+    Await.result(actorSystem.terminate(), 5.seconds)
+
+  private def validate(rules: List[ValidationRule]): Unit = {
+    val errors = Validator.validate(document, schema, rules)
+    if (errors.nonEmpty) throw errors.head
+  }
+
+  @Benchmark
+  def traversal(): Unit = validate(Nil)
+
+  @Benchmark
+  def operationRules(): Unit = validate(List(OperationValidator))
+
+  @Benchmark
+  def fieldRules(): Unit = validate(List(FieldValidator))
+
+  @Benchmark
+  def fragmentRules(): Unit = validate(List(FragmentValidator))
+
+  @Benchmark
+  def variableRules(): Unit = validate(List(VariableValidator))
+
+  @Benchmark
+  def directiveRules(): Unit = validate(List(DirectiveValidator))
+
+  @Benchmark
+  def valueRules(): Unit = validate(List(ValueValidator))
+
+  @Benchmark
+  def allRules(): Unit = validate(ValidationRule.all)
+
+  @Benchmark
+  def execution(): Unit = {
+    val request = SymphonyQLRequest(
+      query,
+      variables =
+        Some(Map("origin" -> SymphonyQLValue.EnumValue("MARS"), "withNicknames" -> SymphonyQLValue.BooleanValue(true)))
+    )
+    Await.result(SymphonyScala.graphql.runWith(request), 1.minute)
+    ()
+  }
+}
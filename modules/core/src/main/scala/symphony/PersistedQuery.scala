@@ -0,0 +1,54 @@
+package symphony
+
+import symphony.parser.*
+import symphony.parser.SymphonyQLValue.*
+
+import java.nio.charset.StandardCharsets
+import java.security.MessageDigest
+import java.util.{ HexFormat, Locale }
+
+/**
+ * The automatic persisted queries protocol: clients first send only the SHA-256 hash of a query, in
+ * `extensions.persistedQuery.sha256Hash`, and send the query along with its hash once told that the hash is unknown.
+ */
+private[symphony] object PersistedQuery {
+
+  /**
+   * The hash a request refers to, if it uses the protocol, in lower case, so that the store finds a query whatever
+   * the case of the hexadecimal digits sent by the client.
+   */
+  def hash(request: SymphonyQLRequest): Option[Either[SymphonyQLError, String]] =
+    request.extensions.flatMap(_.get("persistedQuery")).map {
+      case SymphonyQLInputValue.ObjectValue(fields) =>
+        (fields.get("version"), fields.get("sha256Hash")) match
+          case (Some(version: IntValue), Some(StringValue(hash))) =>
+            if (version.toLong == 1L) Right(hash.toLowerCase(Locale.ROOT))
+            else Left(badRequest("Unsupported persisted query version"))
+          case _                                                  =>
+            Left(badRequest("Invalid persisted query extension"))
+      case _                                        => Left(badRequest("Invalid persisted query extension"))
+    }
+
+  /**
+   * Whether `hash`, in lower case, is the hash of `query`.
+   */
+  def matches(query: String, hash: String): Boolean =
+    HexFormat
+      .of()
+      .formatHex(MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8)))
+      .equals(hash)
+
+  val notFound: SymphonyQLError = error("PersistedQueryNotFound", "PERSISTED_QUERY_NOT_FOUND")
+
+  val notSupported: SymphonyQLError = error("PersistedQueryNotSupported", "PERSISTED_QUERY_NOT_SUPPORTED")
+
+  val hashMismatch: SymphonyQLError = badRequest("provided sha does not match query")
+
+  private def badRequest(message: String): SymphonyQLError = error(message, "BAD_REQUEST")
+
+  private def error(message: String, code: String): SymphonyQLError =
+    SymphonyQLError.ExecutionError(
+      message,
+      extensions = Some(SymphonyQLOutputValue.ObjectValue(List("code" -> StringValue(code))))
+    )
+}
@@ -2,21 +2,43 @@ package symphony
 
 import org.apache.pekko.NotUsed
 import org.apache.pekko.actor.ActorSystem
-import org.apache.pekko.stream.scaladsl.*
+import org.apache.pekko.stream.javadsl
+import org.apache.pekko.stream.scaladsl.Source
+import symphony.cache.*
 import symphony.execution.*
 import symphony.parser.*
 import symphony.parser.adt.Definition.TypeSystemDefinition.*
 import symphony.parser.adt.Document
 import symphony.schema.*
+import symphony.validator.*
 
+import scala.jdk.CollectionConverters.*
 import scala.jdk.FutureConverters.*
 import java.util.concurrent.CompletionStage
 import scala.concurrent.*
+import scala.concurrent.duration.*
 import scala.util.*
+import scala.util.control.NonFatal
 import symphony.parser.adt.Definition.ExecutableDefinition.*
 import symphony.parser.adt.OperationType
 
-final class SymphonyQL private (rootSchema: RootSchema) {
+final class SymphonyQL private (
+  rootSchema: RootSchema,
+  documentCache: Option[BoundedCache[String, ExecutionPlan]],
+  parserBackend: ParserBackend,
+  validationCache: Option[BoundedCache[SymphonyQL.ValidationKey, List[SymphonyQLError.ValidationError]]],
+  memoization: Option[CacheSettings],
+  executionContext: Option[ActorSystem => ExecutionContext],
+  planningContext: Option[ActorSystem => ExecutionContext],
+  maxFuturesInFlight: Option[Int],
+  javaResolverContext: Option[ExecutionContext],
+  requestTimeout: Option[FiniteDuration],
+  persistedQueries: Option[PersistedQueryStore],
+  trustedOperations: Option[Map[String, String]],
+  strictOperations: Boolean,
+  subscriptionHub: Option[SubscriptionHub],
+  subscriptionBackpressure: Map[String, SubscriptionBackpressure]
+) {
 
   private lazy val _document: Document = Document(
     SchemaDefinition(
@@ -41,28 +63,219 @@ final class SymphonyQL private (rootSchema: RootSchema) {
     )
   )
 
+  private lazy val validationSchema: Either[SymphonyQLError.ExecutionError, ValidationSchema] =
+    rootType.map(toValidationSchema)
+
+  private lazy val introspectionValidationSchema: ValidationSchema = toValidationSchema(
+    Introspector.introspectionRootType
+  )
+
+  private lazy val fieldTypes: FieldTypes = new FieldTypes(rootType.fold(_ => Map.empty, _.types))
+
+  private lazy val introspectionFieldTypes: FieldTypes = new FieldTypes(Introspector.introspectionRootType.types)
+
+  private val trusted: Option[TrustedOperations] = trustedOperations.map(operations =>
+    new TrustedOperations(operations.map((id, query) => id -> (query, precompile(id, query))), strictOperations)
+  )
+
   def document: Document = _document
 
   def render: String = DocumentRenderer.render(_document)
 
+  def documentCacheStats: Option[CacheStats] = documentCache.map(_.stats)
+
+  def validationCacheStats: Option[CacheStats] = validationCache.map(_.stats)
+
   def run(request: SymphonyQLRequest, actorSystem: ActorSystem): CompletionStage[SymphonyQLResponse[SymphonyQLError]] =
     runWith(request)(actorSystem).asJava
 
+  /**
+   * Without a planning dispatcher, runs on the calling thread until a resolver returns pending work, so a request whose
+   * stages are all completed is answered with an already-completed future.
+   */
   def runWith(
     request: SymphonyQLRequest
   )(implicit
     actorSystem: ActorSystem
-  ): Future[SymphonyQLResponse[SymphonyQLError]] =
-    import actorSystem.dispatcher
-    for {
-      doc  <- Future(SymphonyQLParser.parseQuery(request.query))
-      resp <- doc match
-                case Left(ex)        => Future.failed(ex)
-                case Right(document) =>
-                  compileRequest(document, request)
-                    .map(SymphonyQLResponse(_, List.empty))
-                    .runWith[Future[SymphonyQLResponse[SymphonyQLError]]](Sink.head)
-    } yield resp
+  ): Future[SymphonyQLResponse[SymphonyQLError]] = {
+    implicit val ec: ExecutionContext = executionContext.fold(actorSystem.dispatcher)(_(actorSystem))
+    planningContext match
+      case None           =>
+        try executePrepared(prepareRequest(request))
+        catch case NonFatal(ex) => Future.failed(ex)
+      case Some(planning) =>
+        Future(prepareRequest(request))(planning(actorSystem)).flatMap(executePrepared)
+  }
+
+  /**
+   * Java API
+   */
+  def runBatch(
+    requests: java.util.List[SymphonyQLRequest],
+    actorSystem: ActorSystem
+  ): CompletionStage[java.util.List[SymphonyQLResponse[SymphonyQLError]]] =
+    runBatchWith(requests.asScala.toList)(actorSystem).map(_.asJava)(ExecutionContext.parasitic).asJava
+
+  /**
+   * Runs independent requests together, e.g. the operations of an HTTP batch. Their resolvers run concurrently, and
+   * they share one batch scheduler and resolver memoization, so that the loads and resolver calls they have in common
+   * happen once, except those of mutations. A request that cannot be parsed or validated only fails its own response.
+   */
+  def runBatchWith(
+    requests: List[SymphonyQLRequest]
+  )(implicit
+    actorSystem: ActorSystem
+  ): Future[List[SymphonyQLResponse[SymphonyQLError]]] = {
+    implicit val ec: ExecutionContext = executionContext.fold(actorSystem.dispatcher)(_(actorSystem))
+    def prepare(request: SymphonyQLRequest): Either[SymphonyQLResponse[SymphonyQLError], ExecutionRequest] =
+      try prepareRequest(request)
+      catch case error: SymphonyQLError => Left(errorResponse(error))
+    val prepared = planningContext match
+      case None           => Future.fromTry(Try(requests.map(prepare)))
+      case Some(planning) => Future(requests.map(prepare))(planning(actorSystem))
+    prepared.flatMap { prepared =>
+      val executed = Executor.executeBatch(prepared.collect { case Right(request) => request }).iterator
+      Future.sequence(prepared.map {
+        case Left(response) => Future.successful(response)
+        case Right(_)       => executed.next()
+      })
+    }
+  }
+
+  /**
+   * Java API
+   */
+  def runIncremental(
+    request: SymphonyQLRequest,
+    actorSystem: ActorSystem
+  ): javadsl.Source[SymphonyQLIncrementalResult, NotUsed] =
+    runIncrementalWith(request)(actorSystem).asJava
+
+  /**
+   * Emits the initial result as soon as the fields outside of `@defer` fragments are resolved, along with the first
+   * elements of the lists marked with `@stream`, then the deferred fragments and the other streamed elements as they
+   * resolve. A request without those directives has a single result, the same as with [[runWith]].
+   */
+  def runIncrementalWith(
+    request: SymphonyQLRequest
+  )(implicit
+    actorSystem: ActorSystem
+  ): Source[SymphonyQLIncrementalResult, NotUsed] = {
+    implicit val ec: ExecutionContext = executionContext.fold(actorSystem.dispatcher)(_(actorSystem))
+    val prepared                      = planningContext match
+      case None           => Future.fromTry(Try(prepareRequest(request)))
+      case Some(planning) => Future(prepareRequest(request))(planning(actorSystem))
+    Source
+      .futureSource(prepared.map {
+        case Left(response) => Source.single(SymphonyQLIncrementalResult.Initial(response, hasNext = false))
+        case Right(request) => Executor.executeIncremental(request)
+      })
+      .mapMaterializedValue(_ => NotUsed)
+  }
+
+  /**
+   * Blocks until the response is ready, without any dispatcher hop when no resolver is asynchronous. Meant for callers
+   * that can afford to block, e.g. on virtual threads.
+   */
+  def runSync(request: SymphonyQLRequest)(implicit actorSystem: ActorSystem): SymphonyQLResponse[SymphonyQLError] = {
+    val response = runWith(request)
+    response.value.fold(Await.result(response, Duration.Inf))(_.get)
+  }
+
+  private def parseDocument(query: String): Either[SymphonyQLError.ParsingError, ExecutionPlan] =
+    documentCache match
+      case None        => SymphonyQLParser.parseQuery(query, parserBackend).map(new ExecutionPlan(_))
+      case Some(cache) =>
+        cache.get(query) match
+          case Some(plan) => Right(plan)
+          case None       =>
+            val parsed = SymphonyQLParser.parseQuery(query, parserBackend).map(new ExecutionPlan(_))
+            parsed.foreach(cache.put(query, _))
+            parsed
+
+  private def parsePlan(query: String): ExecutionPlan =
+    parseDocument(query) match
+      case Left(ex)    => throw ex
+      case Right(plan) => plan
+
+  /**
+   * Fails the build of the instance if a trusted operation is not valid.
+   */
+  private def precompile(id: String, query: String): ExecutionPlan =
+    SymphonyQLParser.parseQuery(query, parserBackend) match
+      case Left(error)     => throw new IllegalArgumentException(s"Trusted operation $id cannot be parsed: $error")
+      case Right(document) =>
+        validate(document) match
+          case Nil    =>
+            val plan = new ExecutionPlan(document)
+            document.operationDefinitions.foreach(plan.plan)
+            plan
+          case errors =>
+            throw new IllegalArgumentException(s"Trusted operation $id is invalid: ${errors.mkString("; ")}")
+
+  /**
+   * Trusted operations are found by id or by text without being parsed, and in strict mode nothing else is parsed.
+   * Errors are already a response.
+   */
+  private def documentPlan(request: SymphonyQLRequest): Either[SymphonyQLResponse[SymphonyQLError], ExecutionPlan] =
+    request.operationId match
+      case Some(id) =>
+        trusted.map(_.get(id)).getOrElse(Left(TrustedOperations.unknown(id))).left.map(errorResponse)
+      case None     =>
+        trusted.flatMap(_.find(request.query)) match
+          case Some(plan)                       => Right(plan)
+          case None if trusted.exists(_.strict) => Left(errorResponse(TrustedOperations.notTrusted))
+          case None                             => persistedPlan(request)
+
+  /**
+   * Requests using automatic persisted queries either refer to a registered query by its hash alone, or register the
+   * query they carry, unless it is invalid. Protocol errors are already a response, so that clients can negotiate.
+   */
+  private def persistedPlan(request: SymphonyQLRequest): Either[SymphonyQLResponse[SymphonyQLError], ExecutionPlan] =
+    PersistedQuery.hash(request) match
+      case None              => Right(parsePlan(request.query))
+      case Some(Left(error)) => Left(errorResponse(error))
+      case Some(Right(hash)) =>
+        val registered = persistedQueries match
+          case None if request.query.isEmpty                           => Left(PersistedQuery.notSupported)
+          case None                                                    => Right(parsePlan(request.query))
+          case Some(store) if request.query.isEmpty                    =>
+            store.get(hash).toRight(PersistedQuery.notFound)
+          case Some(_) if !PersistedQuery.matches(request.query, hash) => Left(PersistedQuery.hashMismatch)
+          case Some(store)                                             =>
+            // only valid queries are registered, a query is registered once so validating it twice is rare
+            val plan = parsePlan(request.query)
+            if (validate(plan.document).isEmpty) store.put(hash, plan)
+            Right(plan)
+        registered.left.map(errorResponse)
+
+  private def errorResponse(error: SymphonyQLError): SymphonyQLResponse[SymphonyQLError] =
+    SymphonyQLResponse(SymphonyQLValue.NullValue, List(error))
+
+  /**
+   * A schema without a query root is reported by [[resolveOperation]] instead.
+   */
+  private def validate(document: Document): List[SymphonyQLError.ValidationError] =
+    if (Introspector.isIntrospection(document)) validate(document, introspectionValidationSchema)
+    else validationSchema.fold(_ => Nil, validate(document, _))
+
+  private def validate(document: Document, schema: ValidationSchema): List[SymphonyQLError.ValidationError] =
+    validationCache match
+      case None        => Validator.validate(document, schema)
+      case Some(cache) =>
+        cache.getOrElseUpdate(
+          new SymphonyQL.ValidationKey(schema.version, document),
+          Validator.validate(document, schema)
+        )
+
+  private def toValidationSchema(rootType: RootType): ValidationSchema =
+    new ValidationSchema(
+      rootType.queryType,
+      rootType.mutationType,
+      rootType.subscriptionType,
+      rootType.types,
+      Introspector.directives ++ rootType.additionalDirectives
+    )
 
   private def resolveOperation(
     operationName: Option[String] = None,
@@ -105,33 +318,66 @@ final class SymphonyQL private (rootSchema: RootSchema) {
     op.flatMap(d => operation.map(o => d -> o))
   }
 
-  private def compileRequest(doc: Document, request: SymphonyQLRequest)(implicit
+  /**
+   * Parses, validates and plans the request, throwing parsing and operation errors. Validation errors are already a
+   * response.
+   */
+  private def prepareRequest(
+    request: SymphonyQLRequest
+  ): Either[SymphonyQLResponse[SymphonyQLError], ExecutionRequest] =
+    documentPlan(request).flatMap { plan =>
+      (if (trusted.exists(_.isTrusted(plan))) Nil else validate(plan.document)) match
+        case Nil    =>
+          resolveOperation(request.operationName, plan.document) match
+            case Left(ex)            => throw ex
+            case Right((define, op)) =>
+              Right(
+                ExecutionRequest(
+                  op.stage,
+                  plan.plan(define),
+                  define.variableDefinitions,
+                  request.variables.getOrElse(Map.empty),
+                  define.operationType,
+                  memoization,
+                  maxFuturesInFlight,
+                  javaResolverContext,
+                  request.timeout.orElse(requestTimeout),
+                  Some(if (Introspector.isIntrospection(plan.document)) introspectionFieldTypes else fieldTypes),
+                  subscriptionHub,
+                  subscriptionBackpressure
+                )
+              )
+        case errors => Left(SymphonyQLResponse(SymphonyQLValue.NullValue, errors))
+    }
+
+  private def executePrepared(prepared: Either[SymphonyQLResponse[SymphonyQLError], ExecutionRequest])(implicit
     actorSystem: ActorSystem,
     ec: ExecutionContext
-  ): Source[SymphonyQLOutputValue, NotUsed] = {
-    val fragments = doc.definitions.collect { case fragment: FragmentDefinition =>
-      fragment.name -> fragment
-    }.toMap
-    resolveOperation(request.operationName, doc) match
-      case Left(ex)            => Source.failed(ex)
-      case Right((define, op)) =>
-        Executor.executeRequest(
-          ExecutionRequest(
-            op.stage,
-            define.selectionSet,
-            fragments,
-            define.variableDefinitions,
-            request.variables.getOrElse(Map.empty),
-            define.operationType
-          )
-        )
-  }
+  ): Future[SymphonyQLResponse[SymphonyQLError]] =
+    prepared match
+      case Left(response) => Future.successful(response)
+      case Right(request) =>
+        Executor.executeRequest(request)
 }
 
 object SymphonyQL {
 
   def newSymphonyQL(): SymphonyQLBuilder = new SymphonyQLBuilder
 
+  /**
+   * Documents that only differ by ignored tokens (white space, comments) share the same definitions, and so the same
+   * validation result.
+   */
+  private[symphony] final class ValidationKey(val schemaVersion: Long, val document: Document) {
+    override val hashCode: Int = 31 * schemaVersion.## + document.definitionsHash
+
+    override def equals(other: Any): Boolean =
+      other match
+        case key: ValidationKey =>
+          schemaVersion == key.schemaVersion && hashCode == key.hashCode && document.definitions == key.document.definitions
+        case _                  => false
+  }
+
   private def mergeOperation[R](op: Option[Operation], resolver: R, schema: Schema[R]): Option[Operation] =
     Some(
       op.fold(Operation(schema.lazyType(), schema.analyze(resolver)))(s =>
@@ -144,6 +390,20 @@ object SymphonyQL {
     private var query: Option[Operation]        = None
     private var mutation: Option[Operation]     = None
     private var subscription: Option[Operation] = None
+    private var documentCacheSettings           = Option.empty[CacheSettings]
+    private var parserBackend: ParserBackend    = ParserBackend.Parboiled
+    private var validationCacheSettings         = Option.empty[CacheSettings]
+    private var memoizationSettings             = Option.empty[CacheSettings]
+    private var executionContext                = Option.empty[ActorSystem => ExecutionContext]
+    private var planningContext                 = Option.empty[ActorSystem => ExecutionContext]
+    private var maxFuturesInFlight              = Option.empty[Int]
+    private var javaResolversOnVirtualThreads   = false
+    private var requestTimeout                  = Option.empty[FiniteDuration]
+    private var persistedQueries                = Option.empty[PersistedQueryStore]
+    private var trustedOperations               = Option.empty[Map[String, String]]
+    private var strictOperations                = false
+    private var sharedSubscriptions             = Option.empty[Int]
+    private var subscriptionBackpressure        = Map.empty[String, SubscriptionBackpressure]
 
     def query[Q: Schema](query: Q): this.type = {
       this.query = mergeOperation(this.query, query, summon[Schema[Q]])
@@ -184,6 +444,159 @@ object SymphonyQL {
       this
     }
 
+    /**
+     * Caches parsed documents, along with their execution plans, by query text, weighted by the length of the query.
+     */
+    def documentCache(settings: CacheSettings): this.type = {
+      this.documentCacheSettings = Some(settings)
+      this
+    }
+
+    /**
+     * Caches validation results, including errors, by document and schema, weighted by the number of errors.
+     */
+    def validationCache(settings: CacheSettings): this.type = {
+      this.validationCacheSettings = Some(settings)
+      this
+    }
+
+    /**
+     * Calls each resolver only once per request for the same parent object, field and arguments, remembering at most
+     * `maxSize` calls per request.
+     */
+    def resolverMemoization(settings: CacheSettings): this.type = {
+      this.memoizationSettings = Some(settings)
+      this
+    }
+
+    /**
+     * Runs the continuations of resolver futures and the assembly of results on `executionContext`, instead of the
+     * actor system's default dispatcher.
+     */
+    def executionContext(executionContext: ExecutionContext): this.type = {
+      this.executionContext = Some((_: ActorSystem) => executionContext)
+      this
+    }
+
+    /**
+     * Same as [[executionContext]], with a dispatcher configured in the actor system, e.g. `symphony-dispatcher`.
+     */
+    def dispatcher(dispatcherId: String): this.type = {
+      this.executionContext = Some((system: ActorSystem) => system.dispatchers.lookup(dispatcherId))
+      this
+    }
+
+    /**
+     * Parses, validates and plans requests on `executionContext`, instead of the calling thread.
+     */
+    def planningExecutionContext(executionContext: ExecutionContext): this.type = {
+      this.planningContext = Some((_: ActorSystem) => executionContext)
+      this
+    }
+
+    /**
+     * Same as [[planningExecutionContext]], with a dispatcher configured in the actor system.
+     */
+    def planningDispatcher(dispatcherId: String): this.type = {
+      this.planningContext = Some((system: ActorSystem) => system.dispatchers.lookup(dispatcherId))
+      this
+    }
+
+    /**
+     * Holds back the resolvers of a request while `maxFuturesInFlight` of its futures are pending, so that one wide
+     * query cannot flood the execution context.
+     */
+    def maxFuturesInFlight(maxFuturesInFlight: Int): this.type = {
+      require(maxFuturesInFlight > 0, s"maxFuturesInFlight must be positive, but was $maxFuturesInFlight")
+      this.maxFuturesInFlight = Some(maxFuturesInFlight)
+      this
+    }
+
+    /**
+     * Calls each resolver of the Java API on a virtual thread of its own, and resumes the execution once it returns, so
+     * that blocking resolvers, e.g. over JDBC, do not hold dispatcher threads.
+     */
+    def javaResolversOnVirtualThreads(enabled: Boolean): this.type = {
+      this.javaResolversOnVirtualThreads = enabled
+      this
+    }
+
+    /**
+     * Stops waiting for the pending resolvers of a request once `timeout` has elapsed, aborting the streams it
+     * materialized, and answers with the data resolved so far and an error at the path of each abandoned field.
+     * Requests can override it with their own timeout.
+     */
+    def requestTimeout(timeout: FiniteDuration): this.type = {
+      require(timeout > Duration.Zero, s"requestTimeout must be positive, but was $timeout")
+      this.requestTimeout = Some(timeout)
+      this
+    }
+
+    /**
+     * Java API
+     */
+    def requestTimeout(timeout: java.time.Duration): this.type = requestTimeout(timeout.toNanos.nanos)
+
+    /**
+     * Accepts automatic persisted queries: requests carrying the SHA-256 hash of a query in
+     * `extensions.persistedQuery.sha256Hash` register it in `store`, and later requests may send the hash alone.
+     * Without this, such requests must carry the query.
+     */
+    def persistedQueries(store: PersistedQueryStore): this.type = {
+      this.persistedQueries = Some(store)
+      this
+    }
+
+    /**
+     * Same as [[persistedQueries]], with queries kept in memory.
+     */
+    def persistedQueries(settings: CacheSettings): this.type = persistedQueries(PersistedQueryStore.inMemory(settings))
+
+    /**
+     * Registers a fixed set of operations by id, parsed, validated and planned once by [[build]], which fails if one
+     * of them is not valid. Requests refer to them with [[SymphonyQLRequest.operationId]], or send their exact text. In
+     * `strict` mode, any other query is rejected before being parsed.
+     */
+    def trustedOperations(operations: Map[String, String], strict: Boolean): this.type = {
+      this.trustedOperations = Some(this.trustedOperations.getOrElse(Map.empty) ++ operations)
+      this.strictOperations = strict
+      this
+    }
+
+    /**
+     * Java API
+     */
+    def trustedOperations(operations: java.util.Map[String, String], strict: Boolean): this.type =
+      trustedOperations(operations.asScala.toMap, strict)
+
+    /**
+     * Runs the source of a subscription field once for all the subscribers of the same field, with the same arguments
+     * and selections, instead of once per subscriber. Subscribers joining later only receive the events emitted from
+     * then on, and the slowest subscriber sets the pace, `bufferSize` events ahead at most, a power of two.
+     */
+    def sharedSubscriptions(bufferSize: Int): this.type = {
+      require(
+        bufferSize > 0 && (bufferSize & (bufferSize - 1)) == 0,
+        s"bufferSize must be a positive power of two, but was $bufferSize"
+      )
+      this.sharedSubscriptions = Some(bufferSize)
+      this
+    }
+
+    /**
+     * Applies `backpressure` to each subscriber of the subscription field `field`, instead of letting a slow
+     * subscriber backpressure the source of its events.
+     */
+    def subscriptionBackpressure(field: String, backpressure: SubscriptionBackpressure): this.type = {
+      this.subscriptionBackpressure = this.subscriptionBackpressure.updated(field, backpressure)
+      this
+    }
+
+    def parserBackend(parserBackend: ParserBackend): this.type = {
+      this.parserBackend = parserBackend
+      this
+    }
+
     def rootResolver[Q, M, S](
       rootResolver: SymphonyQLResolver[Q, M, S]
     ): this.type = {
@@ -197,7 +610,35 @@ object SymphonyQL {
 
     def build(): SymphonyQL = {
       val allSchemas = RootSchema(query, mutation, subscription) ++ rootSchema
-      new SymphonyQL(allSchemas)
+      new SymphonyQL(
+        allSchemas,
+        documentCacheSettings.map(settings =>
+          new BoundedCache[String, ExecutionPlan](settings, (query, _) => query.length)
+        ),
+        parserBackend,
+        validationCacheSettings.map(settings =>
+          new BoundedCache[ValidationKey, List[SymphonyQLError.ValidationError]](
+            settings,
+            (_, errors) => 1L + errors.size
+          )
+        ),
+        memoizationSettings,
+        executionContext,
+        planningContext,
+        maxFuturesInFlight,
+        Option.when(javaResolversOnVirtualThreads)(
+          ExecutionContext.fromExecutor { (task: Runnable) =>
+            Thread.startVirtualThread(task)
+            ()
+          }
+        ),
+        requestTimeout,
+        persistedQueries,
+        trustedOperations,
+        strictOperations,
+        sharedSubscriptions.map(new SubscriptionHub(_)),
+        subscriptionBackpressure
+      )
     }
   }
 
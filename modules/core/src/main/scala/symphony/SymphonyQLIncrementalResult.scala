@@ -0,0 +1,89 @@
+package symphony
+
+import symphony.parser.*
+import symphony.parser.SymphonyQLOutputValue.*
+import symphony.parser.SymphonyQLValue.*
+
+/**
+ * A result of a request using `@defer` or `@stream`: the initial result first, then subsequent results carrying the
+ * deferred fragments and the streamed list elements as they resolve, until one of them has no next.
+ */
+sealed trait SymphonyQLIncrementalResult {
+  def hasNext: Boolean
+
+  def toOutputValue: SymphonyQLOutputValue
+}
+
+object SymphonyQLIncrementalResult {
+
+  final case class Initial(response: SymphonyQLResponse[SymphonyQLError], hasNext: Boolean)
+      extends SymphonyQLIncrementalResult {
+
+    def toOutputValue: SymphonyQLOutputValue =
+      response.toOutputValue match
+        case ObjectValue(fields) => ObjectValue(fields :+ ("hasNext" -> BooleanValue(hasNext)))
+        case other               => other
+  }
+
+  final case class Subsequent(incremental: List[SymphonyQLIncrementalPayload], hasNext: Boolean)
+      extends SymphonyQLIncrementalResult {
+
+    def toOutputValue: SymphonyQLOutputValue =
+      ObjectValue(
+        List(
+          "incremental" -> Option.when(incremental.nonEmpty)(ListValue(incremental.map(_.toOutputValue))),
+          "hasNext"     -> Some(BooleanValue(hasNext))
+        ).collect { case (name, Some(v)) => name -> v }
+      )
+  }
+}
+
+sealed trait SymphonyQLIncrementalPayload {
+  def path: List[SymphonyQLPathValue]
+  def label: Option[String]
+  def errors: List[SymphonyQLError]
+
+  def toOutputValue: SymphonyQLOutputValue
+}
+
+object SymphonyQLIncrementalPayload {
+
+  /**
+   * The fields of a deferred fragment, for the object at `path`.
+   */
+  final case class Deferred(
+    data: SymphonyQLOutputValue,
+    path: List[SymphonyQLPathValue],
+    label: Option[String],
+    errors: List[SymphonyQLError]
+  ) extends SymphonyQLIncrementalPayload {
+    def toOutputValue: SymphonyQLOutputValue = payload("data" -> data, path, label, errors)
+  }
+
+  /**
+   * Elements of a streamed list, the first of them being at `path`.
+   */
+  final case class Streamed(
+    items: SymphonyQLOutputValue,
+    path: List[SymphonyQLPathValue],
+    label: Option[String],
+    errors: List[SymphonyQLError]
+  ) extends SymphonyQLIncrementalPayload {
+    def toOutputValue: SymphonyQLOutputValue = payload("items" -> items, path, label, errors)
+  }
+
+  private def payload(
+    value: (String, SymphonyQLOutputValue),
+    path: List[SymphonyQLPathValue],
+    label: Option[String],
+    errors: List[SymphonyQLError]
+  ): SymphonyQLOutputValue =
+    ObjectValue(
+      List(
+        value._1 -> Some(value._2),
+        "path"   -> Some(ListValue(path)),
+        "label"  -> label.map(StringValue(_)),
+        "errors" -> Option.when(errors.nonEmpty)(ListValue(errors.map(_.toOutputValue)))
+      ).collect { case (name, Some(v)) => name -> v }
+    )
+}
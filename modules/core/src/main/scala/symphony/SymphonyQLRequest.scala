@@ -4,12 +4,19 @@ import symphony.parser.SymphonyQLInputValue
 import scala.jdk.OptionConverters.*
 import scala.jdk.CollectionConverters.*
 import java.util.Optional
+import scala.concurrent.duration.*
 
+/**
+ * @param operationId
+ *   the id of a trusted operation registered with the [[SymphonyQL]] instance, run instead of `query`
+ */
 final case class SymphonyQLRequest(
   query: String,
   operationName: Option[String] = None,
   variables: Option[Map[String, SymphonyQLInputValue]] = None,
-  extensions: Option[Map[String, SymphonyQLInputValue]] = None
+  extensions: Option[Map[String, SymphonyQLInputValue]] = None,
+  timeout: Option[FiniteDuration] = None,
+  operationId: Option[String] = None
 )
 object SymphonyQLRequest {
 
@@ -20,6 +27,8 @@ object SymphonyQLRequest {
     private var operationName: Option[String]                         = None
     private var variables: Option[Map[String, SymphonyQLInputValue]]  = None
     private var extensions: Option[Map[String, SymphonyQLInputValue]] = None
+    private var timeout: Option[FiniteDuration]                       = None
+    private var operationId: Option[String]                           = None
     def query(query: String): this.type                               =
       this.query = query
       this
@@ -36,6 +45,18 @@ object SymphonyQLRequest {
       this.extensions = extensions.toScala.map(_.asScala.toMap)
       this
 
-    def build(): SymphonyQLRequest = new SymphonyQLRequest(query, operationName, variables, extensions)
+    /**
+     * Overrides the request timeout of the [[SymphonyQL]] instance running this request.
+     */
+    def timeout(timeout: java.time.Duration): this.type =
+      this.timeout = Some(timeout.toNanos.nanos)
+      this
+
+    def operationId(operationId: Optional[String]): this.type =
+      this.operationId = operationId.toScala
+      this
+
+    def build(): SymphonyQLRequest =
+      new SymphonyQLRequest(Option(query).getOrElse(""), operationName, variables, extensions, timeout, operationId)
   }
 }
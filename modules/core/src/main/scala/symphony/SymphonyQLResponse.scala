@@ -3,7 +3,7 @@ package symphony
 import symphony.parser.SymphonyQLError
 import symphony.parser.SymphonyQLOutputValue
 import symphony.parser.SymphonyQLOutputValue.*
-import symphony.parser.SymphonyQLValue.StringValue
+import symphony.parser.SymphonyQLValue.*
 
 final case class SymphonyQLResponse[+E](
   data: SymphonyQLOutputValue,
@@ -14,7 +14,7 @@ final case class SymphonyQLResponse[+E](
   def toOutputValue: SymphonyQLOutputValue =
     ObjectValue(
       List(
-        "data"       -> (if (errors.isEmpty) Some(data) else None),
+        "data"       -> (if (errors.isEmpty || data != NullValue) Some(data) else None),
         "errors"     -> (if (errors.nonEmpty)
                        Some(ListValue(errors.map {
                          case e: SymphonyQLError => e.toOutputValue
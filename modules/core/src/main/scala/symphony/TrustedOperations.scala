@@ -0,0 +1,47 @@
+package symphony
+
+import symphony.execution.ExecutionPlan
+import symphony.parser.*
+import symphony.parser.SymphonyQLValue.*
+
+/**
+ * A fixed set of operations, parsed, validated and planned once when the [[SymphonyQL]] instance is built. Requests
+ * refer to them by id, or send their exact text.
+ *
+ * In strict mode, any other query is rejected before being parsed.
+ */
+private[symphony] final class TrustedOperations(
+  operations: Map[String, (String, ExecutionPlan)],
+  val strict: Boolean
+) {
+
+  private val byId: Map[String, ExecutionPlan] = operations.map((id, operation) => id -> operation._2)
+
+  private val byQuery: Map[String, ExecutionPlan] = operations.values.toMap
+
+  // plans have identity equality, only the registered instances are found
+  private val plans: Set[ExecutionPlan] = byId.values.toSet
+
+  def get(id: String): Either[SymphonyQLError, ExecutionPlan] =
+    byId.get(id).toRight(TrustedOperations.unknown(id))
+
+  def find(query: String): Option[ExecutionPlan] = byQuery.get(query)
+
+  /**
+   * Whether `plan` was validated when registered.
+   */
+  def isTrusted(plan: ExecutionPlan): Boolean = plans.contains(plan)
+}
+
+private[symphony] object TrustedOperations {
+
+  val notTrusted: SymphonyQLError = error("Only trusted operations are accepted", "OPERATION_NOT_TRUSTED")
+
+  def unknown(id: String): SymphonyQLError = error(s"Unknown operation id $id", "OPERATION_NOT_FOUND")
+
+  private def error(message: String, code: String): SymphonyQLError =
+    SymphonyQLError.ExecutionError(
+      message,
+      extensions = Some(SymphonyQLOutputValue.ObjectValue(List("code" -> StringValue(code))))
+    )
+}
@@ -0,0 +1,114 @@
+package symphony.cache
+
+import java.util.concurrent.*
+import java.util.concurrent.atomic.*
+
+/**
+ * A concurrent cache bounded by both the number of entries and their total weight.
+ *
+ * Reads never lock. Eviction follows the CLOCK (second chance) approximation of LRU: every entry read since the
+ * previous sweep is spared once before it can be evicted.
+ */
+final class BoundedCache[K, V](val settings: CacheSettings, weigher: (K, V) => Long) {
+
+  private final class Entry(val key: K, val value: V, val weight: Long) {
+    @volatile var referenced: Boolean = false
+  }
+
+  private val entries      = new ConcurrentHashMap[K, Entry]()
+  private val clock        = new ConcurrentLinkedQueue[Entry]()
+  private val queued       = new AtomicInteger(0)
+  private val totalWeight  = new AtomicLong(0L)
+  private val hits         = new LongAdder
+  private val misses       = new LongAdder
+  private val evictions    = new LongAdder
+  private val evictionLock = new Object
+
+  def get(key: K): Option[V] = {
+    val entry = entries.get(key)
+    if (entry eq null) {
+      misses.increment()
+      None
+    } else {
+      if (!entry.referenced) entry.referenced = true
+      hits.increment()
+      Some(entry.value)
+    }
+  }
+
+  def put(key: K, value: V): Unit = {
+    val weight = weigher(key, value)
+    if (weight <= settings.maxWeight) {
+      val entry    = new Entry(key, value, weight)
+      val previous = entries.put(key, entry)
+      if (previous ne null) totalWeight.addAndGet(-previous.weight)
+      totalWeight.addAndGet(weight)
+      clock.offer(entry)
+      queued.incrementAndGet()
+      evict()
+    }
+  }
+
+  def getOrElseUpdate(key: K, value: => V): V =
+    get(key) match
+      case Some(v) => v
+      case None    =>
+        val v = value
+        put(key, v)
+        v
+
+  def invalidate(key: K): Unit = {
+    val entry = entries.remove(key)
+    if (entry ne null) totalWeight.addAndGet(-entry.weight)
+  }
+
+  def invalidateAll(): Unit = evictionLock.synchronized {
+    entries.keySet().forEach(invalidate(_))
+    clock.clear()
+    queued.set(0)
+  }
+
+  def size: Int = entries.size()
+
+  def weight: Long = totalWeight.get()
+
+  def stats: CacheStats = CacheStats(hits.sum(), misses.sum(), evictions.sum(), size, weight)
+
+  private def overflow: Boolean = entries.size() > settings.maxSize || totalWeight.get() > settings.maxWeight
+
+  private def isLive(entry: Entry): Boolean = entries.get(entry.key) eq entry
+
+  private def evict(): Unit =
+    if (overflow || queued.get() > 2 * settings.maxSize) evictionLock.synchronized {
+      var entry = clock.poll()
+      while (overflow && (entry ne null)) {
+        queued.decrementAndGet()
+        if (isLive(entry)) {
+          if (entry.referenced) {
+            entry.referenced = false
+            clock.offer(entry)
+            queued.incrementAndGet()
+          } else if (entries.remove(entry.key, entry)) {
+            totalWeight.addAndGet(-entry.weight)
+            evictions.increment()
+          }
+        }
+        entry = if (overflow) clock.poll() else null
+      }
+      if (entry ne null) {
+        clock.offer(entry)
+      }
+      // replaced and invalidated entries stay queued until swept, drop them once they pile up
+      if (queued.get() > 2 * settings.maxSize) {
+        var remaining = queued.get()
+        while (remaining > 0) {
+          val queuedEntry = clock.poll()
+          if (queuedEntry eq null) remaining = 0
+          else {
+            if (isLive(queuedEntry)) clock.offer(queuedEntry) else queued.decrementAndGet()
+            remaining -= 1
+          }
+        }
+      }
+    }
+}
@@ -0,0 +1,28 @@
+package symphony.cache
+
+/**
+ * Bounds of a [[BoundedCache]].
+ *
+ * @param maxSize
+ *   maximum number of entries
+ * @param maxWeight
+ *   maximum total weight of all entries, as measured by the cache's weigher
+ */
+final case class CacheSettings(maxSize: Int, maxWeight: Long = Long.MaxValue) {
+  require(maxSize > 0, s"maxSize must be positive, but was $maxSize")
+  require(maxWeight > 0, s"maxWeight must be positive, but was $maxWeight")
+
+  def withMaxSize(maxSize: Int): CacheSettings = copy(maxSize = maxSize)
+
+  def withMaxWeight(maxWeight: Long): CacheSettings = copy(maxWeight = maxWeight)
+}
+
+object CacheSettings {
+
+  val default: CacheSettings = CacheSettings(1024, 16L * 1024 * 1024)
+
+  /**
+   * Java API
+   */
+  def create(maxSize: Int, maxWeight: Long): CacheSettings = CacheSettings(maxSize, maxWeight)
+}
@@ -0,0 +1,11 @@
+package symphony.cache
+
+final case class CacheStats(hitCount: Long, missCount: Long, evictionCount: Long, size: Int, weight: Long) {
+
+  def requestCount: Long = hitCount + missCount
+
+  def hitRate: Double = if (requestCount == 0) 1.0 else hitCount.toDouble / requestCount
+
+  override def toString: String =
+    s"CacheStats(hits=$hitCount, misses=$missCount, evictions=$evictionCount, size=$size, weight=$weight)"
+}
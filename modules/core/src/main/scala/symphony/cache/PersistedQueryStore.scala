@@ -0,0 +1,36 @@
+package symphony.cache
+
+import symphony.execution.ExecutionPlan
+
+/**
+ * Stores the queries registered through automatic persisted queries, by the SHA-256 hash of their text. Queries are
+ * stored parsed and planned, so that a request sending only the hash skips parsing altogether.
+ */
+trait PersistedQueryStore {
+
+  def get(hash: String): Option[ExecutionPlan]
+
+  def put(hash: String, plan: ExecutionPlan): Unit
+}
+
+object PersistedQueryStore {
+
+  /**
+   * Keeps the queries in memory, bounded by `settings` and weighted by the length of the query.
+   */
+  def inMemory(settings: CacheSettings): InMemory = new InMemory(settings)
+
+  final class InMemory private[PersistedQueryStore] (settings: CacheSettings) extends PersistedQueryStore {
+
+    private val cache = new BoundedCache[String, ExecutionPlan](
+      settings,
+      (_, plan) => plan.document.sourceMapper.size.getOrElse(1).toLong
+    )
+
+    def get(hash: String): Option[ExecutionPlan] = cache.get(hash)
+
+    def put(hash: String, plan: ExecutionPlan): Unit = cache.put(hash, plan)
+
+    def stats: CacheStats = cache.stats
+  }
+}
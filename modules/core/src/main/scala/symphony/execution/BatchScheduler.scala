@@ -0,0 +1,84 @@
+package symphony.execution
+
+import symphony.schema.*
+
+import scala.collection.mutable
+import scala.concurrent.*
+import scala.util.*
+import scala.util.control.NonFatal
+
+/**
+ * Collects the keys of the [[Stage.BatchStage]]s of one request, or of the requests of a batch. They are loaded by
+ * [[dispatch]], which the executor calls whenever it cannot go further without them, so that the keys of a whole level
+ * of the result share one call per loader. Loaded values are kept until the end of the request, or of the event of a
+ * subscription being executed, see [[clear]].
+ */
+private[execution] final class BatchScheduler(implicit ec: ExecutionContext) {
+
+  private type Loader = BatchLoader[Any, Any]
+
+  private val results = mutable.HashMap.empty[(Loader, Any), Try[Option[Any]]]
+  private val waiting = mutable.HashMap.empty[(Loader, Any), List[Try[Option[Any]] => Unit]]
+  private val queued  = mutable.LinkedHashMap.empty[Loader, mutable.LinkedHashSet[Any]]
+
+  def load(loader: Loader, key: Any)(f: Option[Any] => ExecutionStage): ExecutionStage = {
+    val promise = Promise[ExecutionStage]()
+    val result  = synchronized {
+      val result = results.get(loader -> key)
+      if (result.isEmpty) {
+        val callbacks = waiting.getOrElse(loader -> key, Nil)
+        if (callbacks.isEmpty) queued.getOrElseUpdate(loader, mutable.LinkedHashSet.empty) += key
+        waiting.update(loader -> key, ((value: Try[Option[Any]]) => promise.complete(value.map(f))) :: callbacks)
+      }
+      result
+    }
+    result match
+      case Some(Success(value)) => f(value)
+      case Some(Failure(ex))    => ExecutionStage.FutureStage(Future.failed(ex))
+      case None                 => ExecutionStage.FutureStage(promise.future)
+  }
+
+  /**
+   * Forgets the values loaded so far, so that the keys reached from then on are loaded again. Keys still loading are
+   * unaffected.
+   */
+  def clear(): Unit = synchronized(results.clear())
+
+  def dispatch(): Unit = {
+    val batches   = synchronized {
+      val batches = queued.toList.map((loader, keys) => loader -> keys.toList)
+      queued.clear()
+      batches
+    }
+    val completed = batches.flatMap { (loader, keys) =>
+      keys.grouped(loader.maxBatchSize max 1).flatMap { batch =>
+        val loaded =
+          try loader.loadMany(batch)
+          catch case NonFatal(ex) => Future.failed(ex)
+        loaded.value match
+          case Some(value) => Some((loader, batch, value))
+          case None        =>
+            loaded.onComplete { value =>
+              complete(loader, batch, value)
+              dispatch()
+            }
+            None
+      }
+    }
+    if (completed.nonEmpty) {
+      completed.foreach(complete)
+      dispatch()
+    }
+  }
+
+  private def complete(loader: Loader, keys: List[Any], loaded: Try[Map[Any, Any]]): Unit = {
+    val callbacks = synchronized {
+      keys.flatMap { key =>
+        val value = loaded.map(_.get(key))
+        results.update(loader -> key, value)
+        waiting.remove(loader -> key).getOrElse(Nil).reverse.map(_ -> value)
+      }
+    }
+    callbacks.foreach((callback, value) => callback(value))
+  }
+}
@@ -0,0 +1,157 @@
+package symphony.execution
+
+import symphony.parser.*
+import symphony.parser.SymphonyQLInputValue.*
+import symphony.parser.SymphonyQLValue.*
+import symphony.parser.adt.*
+import symphony.parser.adt.Definition.ExecutableDefinition.*
+import symphony.parser.adt.Selection.*
+
+import scala.collection.concurrent.TrieMap
+import scala.collection.mutable
+
+/**
+ * A parsed document together with the plans of its operations. Plans only depend on the document, so an instance can
+ * be cached with the document and shared by concurrent requests.
+ */
+final class ExecutionPlan(val document: Document) {
+
+  val fragments: Map[String, FragmentDefinition] =
+    document.fragmentDefinitions.map(fragment => fragment.name -> fragment).toMap
+
+  private val operations = TrieMap.empty[Option[String], SelectionPlan]
+
+  def plan(operation: OperationDefinition): SelectionPlan =
+    operations.getOrElseUpdate(operation.name, new SelectionPlan(operation.selectionSet, fragments))
+}
+
+/**
+ * The selections requested on an object, with fragments expanded and fields of the same response key merged.
+ *
+ * Merging depends on the concrete type of the object, so it is done the first time a type is met and reused for every
+ * other object of that type, e.g. for all the elements of a list.
+ */
+final class SelectionPlan private[execution] (
+  selections: List[Selection],
+  fragments: Map[String, FragmentDefinition]
+) {
+
+  private val merged = TrieMap.empty[String, List[FieldPlan]]
+
+  def fields(typeName: String): List[FieldPlan] =
+    merged.getOrElseUpdate(typeName, merge(typeName))
+
+  /**
+   * The selections with fragment spreads replaced by their fragment, equal for the plans of the same selections in
+   * different documents. Selections hash by identity, so [[expandedHash]] must be used along with it.
+   */
+  private[execution] lazy val expanded: List[Selection] = expand(selections, Set.empty)
+
+  private[execution] lazy val expandedHash: Int = Document.hashSelections(expanded)
+
+  private def expand(selections: List[Selection], visited: Set[String]): List[Selection] =
+    selections.flatMap {
+      case field: Field                                                =>
+        List(field.copy(selectionSet = expand(field.selectionSet, visited)))
+      case InlineFragment(typeCondition, directives, selectionSet)     =>
+        List(InlineFragment(typeCondition, directives, expand(selectionSet, visited)))
+      case FragmentSpread(name, directives) if !visited.contains(name) =>
+        fragments.get(name).toList.map { fragment =>
+          InlineFragment(Some(fragment.typeCondition), directives, expand(fragment.selectionSet, visited + name))
+        }
+      case _                                                           => Nil
+    }
+
+  private def merge(typeName: String): List[FieldPlan] = {
+    val fields = mutable.LinkedHashMap.empty[String, (Field, List[Selection], Option[DeferPlan])]
+
+    // a field selected outside of any deferred fragment is never deferred
+    def collect(selections: List[Selection], visited: Set[String], deferred: Option[DeferPlan]): Unit =
+      selections.foreach {
+        case field: Field                                                =>
+          val responseKey = field.alias.getOrElse(field.name)
+          fields.get(responseKey) match
+            case None                            => fields.update(responseKey, (field, field.selectionSet, deferred))
+            case Some((first, nested, deferral)) =>
+              fields.update(responseKey, (first, nested ++ field.selectionSet, deferral.filter(_ => deferred.nonEmpty)))
+        case InlineFragment(typeCondition, directives, selectionSet)     =>
+          if (typeCondition.forall(_.name == typeName))
+            collect(selectionSet, visited, DeferPlan.from(directives).orElse(deferred))
+        case FragmentSpread(name, directives) if !visited.contains(name) =>
+          fragments.get(name) match
+            case Some(fragment) if fragment.typeCondition.name == typeName =>
+              collect(fragment.selectionSet, visited + name, DeferPlan.from(directives).orElse(deferred))
+            case _                                                         => ()
+        case _                                                           => ()
+      }
+
+    collect(selections, Set.empty, None)
+    fields.iterator.map { case (responseKey, (field, selectionSet, deferred)) =>
+      FieldPlan(
+        responseKey,
+        field.name,
+        field.arguments,
+        field.arguments.values.exists(_.isInstanceOf[VariableValue]),
+        new SelectionPlan(selectionSet, fragments),
+        deferred,
+        StreamPlan.from(field.directives)
+      )
+    }.toList
+  }
+}
+
+/**
+ * @param hasVariables
+ *   whether the arguments need to be resolved against the variables of each request
+ * @param deferred
+ *   the `@defer` fragment the field was selected in, if it was only selected in deferred fragments
+ * @param stream
+ *   the `@stream` directive of a list field
+ */
+final case class FieldPlan(
+  responseKey: String,
+  name: String,
+  arguments: Map[String, SymphonyQLInputValue],
+  hasVariables: Boolean,
+  selection: SelectionPlan,
+  deferred: Option[DeferPlan] = None,
+  stream: Option[StreamPlan] = None
+) {
+  def isTypeName: Boolean = name == "__typename"
+}
+
+/**
+ * A fragment marked with `@defer`. The fields selected in the same fragment are delivered together, so two fragments
+ * are never equal.
+ */
+final class DeferPlan private (val label: Option[String], val condition: SymphonyQLInputValue)
+
+object DeferPlan {
+  private[execution] def from(directives: List[Directive]): Option[DeferPlan] =
+    directives.collectFirst { case Directive("defer", arguments) =>
+      new DeferPlan(label(arguments), arguments.getOrElse("if", BooleanValue(true)))
+    }
+
+  private[execution] def label(arguments: Map[String, SymphonyQLInputValue]): Option[String] =
+    arguments.get("label").collect { case StringValue(label) => label }
+}
+
+/**
+ * A list field marked with `@stream`, whose first `initialCount` elements are delivered with the initial payload.
+ */
+final case class StreamPlan(
+  label: Option[String],
+  initialCount: SymphonyQLInputValue,
+  condition: SymphonyQLInputValue
+)
+
+object StreamPlan {
+  private[execution] def from(directives: List[Directive]): Option[StreamPlan] =
+    directives.collectFirst { case Directive("stream", arguments) =>
+      StreamPlan(
+        DeferPlan.label(arguments),
+        arguments.getOrElse("initialCount", IntValue(0)),
+        arguments.getOrElse("if", BooleanValue(true))
+      )
+    }
+}
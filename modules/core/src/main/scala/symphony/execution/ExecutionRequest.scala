@@ -1,15 +1,24 @@
 package symphony.execution
 
+import symphony.cache.CacheSettings
 import symphony.parser.SymphonyQLInputValue
-import symphony.parser.adt.Definition.ExecutableDefinition.FragmentDefinition
 import symphony.parser.adt.*
 import symphony.schema.Stage
 
+import scala.concurrent.ExecutionContext
+import scala.concurrent.duration.FiniteDuration
+
 final case class ExecutionRequest(
   stage: Stage,
-  selectionSet: List[Selection],
-  fragments: Map[String, FragmentDefinition],
+  plan: SelectionPlan,
   variableDefinitions: List[VariableDefinition],
   variableValues: Map[String, SymphonyQLInputValue],
-  operationType: OperationType
+  operationType: OperationType,
+  memoization: Option[CacheSettings] = None,
+  maxFuturesInFlight: Option[Int] = None,
+  javaResolverContext: Option[ExecutionContext] = None,
+  timeout: Option[FiniteDuration] = None,
+  fieldTypes: Option[FieldTypes] = None,
+  subscriptionHub: Option[SubscriptionHub] = None,
+  subscriptionBackpressure: Map[String, SubscriptionBackpressure] = Map.empty
 )
@@ -3,147 +3,571 @@ package symphony.execution
 import org.apache.pekko.NotUsed
 import org.apache.pekko.actor.ActorSystem
 import org.apache.pekko.stream.scaladsl.*
+import symphony.*
+import symphony.cache.*
 import symphony.parser.*
+import symphony.parser.SymphonyQLOutputValue.EventValue
 import symphony.parser.SymphonyQLValue.*
 import symphony.parser.adt.*
 import symphony.parser.adt.Definition.ExecutableDefinition.*
 import symphony.parser.adt.OperationType.*
 import symphony.parser.adt.Selection.*
+import symphony.parser.adt.introspection.__Type
 import symphony.schema.*
 
-import scala.collection.immutable.ListMap
-import scala.concurrent.ExecutionContext
+import java.util.concurrent.{ ConcurrentHashMap, ConcurrentLinkedQueue }
+import scala.concurrent.*
+import scala.jdk.CollectionConverters.*
+import scala.util.*
+import scala.util.control.{ NoStackTrace, NonFatal }
 
 object Executor {
 
   def executeRequest(
     request: ExecutionRequest
-  )(implicit actorSystem: ActorSystem, ec: ExecutionContext): Source[SymphonyQLOutputValue, NotUsed] = {
-    val fragments           = request.fragments
+  )(implicit actorSystem: ActorSystem, ec: ExecutionContext): Future[SymphonyQLResponse[SymphonyQLError]] =
+    execute(request, None)
+
+  /**
+   * Same as [[executeRequest]], except that the fragments marked with `@defer` and the elements of the lists marked
+   * with `@stream` are left out of the initial result, then delivered as subsequent results as they resolve.
+   * Subscriptions ignore those directives.
+   *
+   * Streamed elements are pulled at the pace the results are consumed, and stop being pulled when the returned source
+   * is cancelled.
+   */
+  def executeIncremental(
+    request: ExecutionRequest
+  )(implicit actorSystem: ActorSystem, ec: ExecutionContext): Source[SymphonyQLIncrementalResult, NotUsed] =
+    if (request.operationType == OperationType.Subscription)
+      Source.future(execute(request, None)).map(SymphonyQLIncrementalResult.Initial(_, hasNext = false))
+    else {
+      val queue = new IncrementalQueue()
+      Source
+        .future(execute(request, Some(queue)))
+        .map[SymphonyQLIncrementalResult](response => SymphonyQLIncrementalResult.Initial(response, queue.start()))
+        .concat(Source.unfoldAsync(())(_ => queue.next().map(_.map(() -> _))(ExecutionContext.parasitic)))
+        .watchTermination() { (_, done) =>
+          // the streamed elements are no longer pulled once the results are not consumed anymore
+          done.onComplete(_ => queue.cancel())(ExecutionContext.parasitic)
+          NotUsed
+        }
+    }
+
+  /**
+   * Executes requests together, e.g. the operations of an HTTP batch, with one batch scheduler and one resolver
+   * memoization for all of them, so that the keys and resolvers they have in common are loaded and called once. The
+   * keys reached by the first level of every request are loaded together. Resolvers of mutations are never memoized,
+   * every mutation of the batch calls its own.
+   */
+  def executeBatch(
+    requests: List[ExecutionRequest]
+  )(implicit actorSystem: ActorSystem, ec: ExecutionContext): List[Future[SymphonyQLResponse[SymphonyQLError]]] = {
+    val scope     = new Scope(requests.flatMap(_.memoization).headOption)
+    val responses = requests.map(execute(_, None, scope, dispatch = false))
+    scope.batches.dispatch()
+    responses
+  }
+
+  /**
+   * The state of an execution that outlives its requests when they are executed together.
+   */
+  private final class Scope(memoization: Option[CacheSettings])(implicit ec: ExecutionContext) {
+    val batches   = new BatchScheduler
+    val resolvers = memoization.map(new BoundedCache[ResolverKey, Stage](_, (_, _) => 1L))
+  }
+
+  private def execute(
+    request: ExecutionRequest,
+    incremental: Option[IncrementalQueue]
+  )(implicit actorSystem: ActorSystem, ec: ExecutionContext): Future[SymphonyQLResponse[SymphonyQLError]] =
+    execute(request, incremental, new Scope(request.memoization), dispatch = true)
+
+  private def execute(
+    request: ExecutionRequest,
+    incremental: Option[IncrementalQueue],
+    scope: Scope,
+    dispatch: Boolean
+  )(implicit actorSystem: ActorSystem, ec: ExecutionContext): Future[SymphonyQLResponse[SymphonyQLError]] = {
     val variableDefinitions = request.variableDefinitions
     val variableValues      = request.variableValues
     val operationType       = request.operationType
+    val batches             = scope.batches
+    // the resolvers of mutations have side effects, each field of the operation must call its own
+    val resolvers           = if (operationType == OperationType.Mutation) None else scope.resolvers
+    val limiter             = request.maxFuturesInFlight.map(new FutureLimiter(_))
+    val deadline            = request.timeout.map(new RequestDeadline(_))
+    // the resolvers still waiting for a slot are never called once the deadline expired
+    for (deadline <- deadline; limiter <- limiter) deadline.onExpiry(limiter.fail)
+    val errors              = new ConcurrentLinkedQueue[SymphonyQLError]()
+    val fieldTypes          = request.fieldTypes
+    val streamed            = incremental.map(_ => ConcurrentHashMap.newKeySet[SelectionPlan]())
+
+    // with memoization, a resolver is only called once per parent, field and arguments it is called with
+    def resolveField(parent: Option[Any], field: String, stage: Stage): Stage =
+      (resolvers, parent, stage) match
+        case (Some(cache), Some(parent), Stage.FunctionStage(resolver)) =>
+          Stage.FunctionStage(args =>
+            cache.getOrElseUpdate(new ResolverKey(parent, field, args), invoke(resolver, args))
+          )
+        case _                                                           => stage
+
+    /**
+     * Each event of a root subscription field is executed and drained on its own, into the response sent for it. The
+     * subscribers of the same root field, alias, arguments, selections and variables share one run of its source, each
+     * event being executed and assembled once for all of them, so that they all receive the same value. The
+     * backpressure policy of the field applies to each subscriber, so that a slow one cannot hold the shared source.
+     */
+    def subscribe(
+      typeName: String,
+      field: FieldPlan,
+      stage: Stage,
+      arguments: Map[String, SymphonyQLInputValue]
+    ): Option[ExecutionStage] =
+      stage match
+        case Stage.ScalaSourceStage(source) if isRootSubscription(typeName, field) =>
+          val backpressure = request.subscriptionBackpressure.get(field.name)
+          val eventType    = fieldTypes.flatMap(_(typeName, field.name)).flatMap(FieldTypes.elementType)
+
+          // an event only starts once the previous one is drained, without the values it loaded or memoized
+          def events(source: Source[Stage, NotUsed]): Source[ExecutionStage, NotUsed] =
+            source
+              .mapAsync(1) { event =>
+                batches.clear()
+                resolvers.foreach(_.invalidateAll())
+                drainEvent(executeAndDispatch(event, field.selection, arguments), field.responseKey, eventType)
+              }
+              .map(PureStage(_))
+
+          request.subscriptionHub match
+            case Some(hub) =>
+              val key    =
+                new SubscriptionKey(typeName, field.name, field.responseKey, arguments, field.selection, variableValues)
+              val shared = hub.subscribe(key, events(source))
+              Some(ExecutionStage.ScalaSourceStage(backpressure.fold(shared)(_(shared))))
+            case None      =>
+              // events dropped by the policy are never executed
+              Some(ExecutionStage.ScalaSourceStage(events(backpressure.fold(source)(_(source)))))
+        case Stage.JavaSourceStage(source) if isRootSubscription(typeName, field)  =>
+          subscribe(typeName, field, Stage.ScalaSourceStage(source.asScala), arguments)
+        case _                                                                     => None
+
+    def isRootSubscription(typeName: String, field: FieldPlan): Boolean =
+      operationType == OperationType.Subscription && request.plan.fields(typeName).exists(_ eq field)
+
+    // Java resolvers may block, they run on a virtual thread of their own when enabled
+    def invoke(
+      resolver: Map[String, SymphonyQLInputValue] => Stage,
+      arguments: Map[String, SymphonyQLInputValue]
+    ): Stage =
+      (resolver, request.javaResolverContext) match
+        case (_: Stage.JavaResolver, Some(context)) => Stage.FutureStage(Future(resolver(arguments))(context))
+        case _                                      => resolver(arguments)
+
+    // resolvers wait for a slot while too many resolvers of the request have a pending future
+    def callResolver(
+      resolver: Map[String, SymphonyQLInputValue] => Stage,
+      plan: SelectionPlan,
+      arguments: Map[String, SymphonyQLInputValue]
+    ): ExecutionStage =
+      limiter match
+        case None          => loopExecuteStage(invoke(resolver, arguments), plan, Map())
+        case Some(limiter) =>
+          def resolve(): Stage = {
+            val stage =
+              try invoke(resolver, arguments)
+              catch
+                case NonFatal(ex) =>
+                  limiter.release()
+                  throw ex
+            stage match
+              case Stage.FutureStage(future) if !future.isCompleted => limiter.releaseOnComplete(future)
+              case _                                                => limiter.release()
+            stage
+          }
+          limiter.acquire() match
+            case None       => loopExecuteStage(resolve(), plan, Map())
+            case Some(slot) =>
+              ExecutionStage.FutureStage(slot.map { _ =>
+                deadline.filter(_.expired) match
+                  case Some(deadline) =>
+                    limiter.release()
+                    deadline.timedOut
+                  case None           => executeAndDispatch(resolve(), plan, Map())
+              })
+
+    // only stages that can still fail need to know where nulls stop
+    def typed(typeName: String, fieldName: String, stage: ExecutionStage): ExecutionStage =
+      stage match
+        case _: PureStage => stage
+        case _            => fieldTypes.flatMap(_(typeName, fieldName)).fold(stage)(ExecutionStage.TypedStage(stage, _))
+
+    def enabled(condition: SymphonyQLInputValue): Boolean =
+      resolveVariable(condition, variableDefinitions, variableValues) != BooleanValue(false)
+
+    def executeField(
+      typeName: String,
+      fields: Map[String, () => Stage],
+      parent: Option[Any],
+      field: FieldPlan
+    ): ExecutionStage =
+      if (field.isTypeName) PureStage(StringValue(typeName))
+      else {
+        val arguments      =
+          if (field.hasVariables) extractVariables(field.arguments, variableDefinitions, variableValues)
+          else field.arguments
+        // the sources of a streamed field are not collected, their elements are streamed as they come
+        val stream         = if (incremental.isEmpty) None else field.stream.filter(stream => enabled(stream.condition))
+        stream.foreach(_ => streamed.foreach(_.add(field.selection)))
+        val executionStage =
+          try
+            fields
+              .get(field.name)
+              .map(stage => resolveField(parent, field.name, stage()))
+              .map(stage =>
+                subscribe(typeName, field, stage, arguments)
+                  .getOrElse(loopExecuteStage(stage, field.selection, arguments))
+              )
+              .getOrElse(Stage.NullStage)
+          catch case NonFatal(ex) => ExecutionStage.FutureStage(Future.failed(ex))
+        typed(
+          typeName,
+          field.name,
+          stream.fold(executionStage) { stream =>
+            val initialCount = resolveVariable(stream.initialCount, variableDefinitions, variableValues) match
+              case count: IntValue => count.toInt max 0
+              case _               => 0
+            ExecutionStage.StreamStage(executionStage, initialCount, stream.label)
+          }
+        )
+      }
+
+    // loads the batched keys that were reached, whenever the execution resumes from pending work, and fails the work
+    // reached after the deadline, so that it is reported and nulled like any other failure
+    def executeAndDispatch(
+      stage: Stage,
+      plan: SelectionPlan,
+      arguments: Map[String, SymphonyQLInputValue]
+    ): ExecutionStage =
+      unlessExpired {
+        val executionStage = loopExecuteStage(stage, plan, arguments)
+        batches.dispatch()
+        executionStage
+      }
+
+    // the work reached after the deadline is not started, it fails with the timeout of the deadline instead
+    def unlessExpired(stage: => ExecutionStage): ExecutionStage =
+      deadline.filter(_.expired).fold(stage)(_.timedOut)
 
     def loopExecuteStage(
       stage: Stage,
-      selections: List[Selection],
+      plan: SelectionPlan,
       arguments: Map[String, SymphonyQLInputValue]
     ): ExecutionStage =
       stage match
-        case Stage.FutureStage(future)        =>
-          ExecutionStage.FutureStage(future.map(loopExecuteStage(_, selections, arguments)))
-        case Stage.ScalaSourceStage(source)   =>
-          if (operationType == OperationType.Subscription) {
-            ExecutionStage.ScalaSourceStage(source.map(loopExecuteStage(_, selections, arguments)))
+        case Stage.FutureStage(future)                =>
+          future.value match
+            case Some(Success(stage)) => loopExecuteStage(stage, plan, arguments)
+            case _                    => ExecutionStage.FutureStage(future.map(executeAndDispatch(_, plan, arguments)))
+        case Stage.ScalaSourceStage(source)           =>
+          if (operationType == OperationType.Subscription || streamed.exists(_.contains(plan))) {
+            ExecutionStage.ScalaSourceStage(source.map(executeAndDispatch(_, plan, arguments)))
           } else {
-            val future = source.runWith(Sink.seq[Stage]).map(s => Stage.ListStage(s.toList))
+            val future = deadline
+              .fold(source)(deadline => source.via(deadline.killSwitch.flow))
+              .runWith(Sink.seq[Stage])
+              .map(s => Stage.ListStage(s.toList))
             loopExecuteStage(
               Stage.FutureStage(future),
-              selections,
+              plan,
               arguments
             )
           }
-        case Stage.JavaSourceStage(source)    =>
-          loopExecuteStage(Stage.ScalaSourceStage(source.asScala), selections, arguments)
-        case Stage.FunctionStage(stage)       => loopExecuteStage(stage(arguments), selections, Map())
-        case Stage.ListStage(stages)          =>
+        case Stage.JavaSourceStage(source)            =>
+          loopExecuteStage(Stage.ScalaSourceStage(source.asScala), plan, arguments)
+        case Stage.FunctionStage(stage)               => callResolver(stage, plan, arguments)
+        case Stage.BatchStage(loader, key, f)         =>
+          // the value may be loaded after the deadline, the work depending on it then fails with its timeout
+          batches.load(loader, key)(v => unlessExpired(loopExecuteStage(f(v), plan, arguments)))
+        case Stage.ListStage(stages)                  =>
           if (stages.forall(_.isInstanceOf[PureStage]))
             PureStage(SymphonyQLOutputValue.ListValue(stages.asInstanceOf[List[PureStage]].map(_.value)))
-          else ExecutionStage.ListStage(stages.map(loopExecuteStage(_, selections, arguments)))
-        case Stage.ObjectStage(name, _fields) =>
-          val mergedSelections = mergeSelections(selections, name, fragments, variableValues)
-          val fields           = mergedSelections.map {
-            case Selection.Field(alias, name @ "__typename", _, _, _) =>
-              alias.getOrElse(name) -> PureStage(StringValue(name))
-            case Selection.Field(alias, name, args, _, selectionSet)  =>
-              val arguments = extractVariables(args, variableDefinitions, variableValues)
-              alias.getOrElse(name) -> _fields
-                .get(name)
-                .map(loopExecuteStage(_, selectionSet, arguments))
-                .getOrElse(Stage.NullStage)
+          else ExecutionStage.ListStage(stages.map(loopExecuteStage(_, plan, arguments)))
+        case Stage.ObjectStage(name, _fields, parent) =>
+          val selected = plan.fields(name)
+          val deferred =
+            if (incremental.isEmpty) Nil
+            else selected.filter(_.deferred.exists(deferred => enabled(deferred.condition)))
+          val fields   = (if (deferred.isEmpty) selected else selected.filterNot(deferred.contains)).map { field =>
+            field.responseKey -> executeField(name, _fields, parent, field)
           }
-          if (fields.map(_._2).forall(_.isInstanceOf[PureStage]))
+          if (deferred.isEmpty && fields.forall(_._2.isInstanceOf[PureStage]))
             PureStage(
               SymphonyQLOutputValue.ObjectValue(
                 fields.asInstanceOf[List[(String, PureStage)]].map(kv => kv._1 -> kv._2.value)
               )
             )
-          else ExecutionStage.ObjectStage(fields)
-        case p @ PureStage(value)             =>
-          value match {
-            case EnumValue(v) if selections.collectFirst { case Selection.Field(_, "__typename", _, _, _) =>
-                  true
-                }.nonEmpty =>
-              val mergedSelections = mergeSelections(selections, v, fragments, variableValues)
-              val obj              = mergedSelections.collectFirst { case Selection.Field(alias, name @ "__typename", _, _, _) =>
-                SymphonyQLOutputValue.ObjectValue(List(alias.getOrElse(name) -> StringValue(v)))
+          else
+            ExecutionStage.ObjectStage(
+              fields,
+              deferred.flatMap(_.deferred).distinct.map { fragment =>
+                ExecutionStage.Deferred(
+                  fragment.label,
+                  deferred.collect {
+                    case field if field.deferred.contains(fragment) =>
+                      field.responseKey -> executeField(name, _fields, parent, field)
+                  }
+                )
               }
-              obj.fold(p)(PureStage(_))
-            case _ => p
+            )
+        case p @ PureStage(value)                     =>
+          value match {
+            case EnumValue(v) =>
+              plan
+                .fields(v)
+                .collectFirst {
+                  case field if field.isTypeName =>
+                    PureStage(SymphonyQLOutputValue.ObjectValue(List(field.responseKey -> StringValue(v))))
+                }
+                .getOrElse(p)
+            case _            => p
+          }
+
+    /**
+     * Assembles the result in place: completed futures are read directly, and only pending ones are composed. Streams
+     * are only materialized for the fields of a subscription, each element being drained the same way. Errors are
+     * collected in `scope`, the errors of the result being drained.
+     */
+    def drainExecutionStages(
+      stage: ExecutionStage,
+      path: List[SymphonyQLPathValue],
+      fieldType: Option[__Type],
+      scope: ConcurrentLinkedQueue[SymphonyQLError]
+    ): Future[SymphonyQLOutputValue] =
+      stage match
+        case PureStage(value)                                       => Future.successful(value)
+        case ExecutionStage.FutureStage(future)                     =>
+          resolved(future)(drainExecutionStages(_, path, fieldType, scope))
+        case ExecutionStage.ScalaSourceStage(source)                =>
+          val elementType = fieldType.flatMap(FieldTypes.elementType)
+          Future.successful(
+            SymphonyQLOutputValue.StreamValue(source.mapAsync(1)(drainNullable(_, path, elementType, scope)))
+          )
+        case ExecutionStage.JavaSourceStage(source)                 =>
+          drainExecutionStages(ExecutionStage.ScalaSourceStage(source.asScala), path, fieldType, scope)
+        case ExecutionStage.TypedStage(stage, tpe)                  =>
+          drainExecutionStages(stage, path, Some(tpe), scope)
+        case ExecutionStage.StreamStage(stage, initialCount, label) =>
+          drainStream(stage, path, fieldType, scope, initialCount, label)
+        case ExecutionStage.ListStage(stages)                       =>
+          val elementType = fieldType.flatMap(FieldTypes.elementType)
+          val values      = stages.zipWithIndex.map { (stage, i) =>
+            drainNullable(stage, SymphonyQLPathValue.Index(i) :: path, elementType, scope)
           }
+          mapCompleted(sequence(values))(SymphonyQLOutputValue.ListValue(_))
+        case ExecutionStage.ObjectStage(fields, deferred)           =>
+          deferred.foreach(drainDeferred(_, path))
+          mapCompleted(drainFields(fields, path, scope))(values =>
+            SymphonyQLOutputValue.ObjectValue(fields.map(_._1).zip(values))
+          )
+
+    def resolved(future: Future[ExecutionStage])(
+      f: ExecutionStage => Future[SymphonyQLOutputValue]
+    ): Future[SymphonyQLOutputValue] =
+      future.value match
+        case Some(Success(stage)) => f(stage)
+        case Some(Failure(ex))    => Future.failed(ex)
+        case None                 => deadline.fold(future)(_.race(future)).flatMap(f)
+
+    def drainFields(
+      fields: List[(String, ExecutionStage)],
+      path: List[SymphonyQLPathValue],
+      scope: ConcurrentLinkedQueue[SymphonyQLError]
+    ): Future[List[SymphonyQLOutputValue]] =
+      sequence(fields.map {
+        case (key, stage @ ExecutionStage.TypedStage(_, tpe)) =>
+          drainNullable(stage, SymphonyQLPathValue.Key(key) :: path, Some(tpe), scope)
+        case (key, stage)                                     =>
+          drainNullable(stage, SymphonyQLPathValue.Key(key) :: path, None, scope)
+      })
+
+    /**
+     * A failed field or list element resolves to null, with an error at its path, unless its type is non-null, in
+     * which case the enclosing field or element is nulled instead.
+     */
+    def drainNullable(
+      stage: ExecutionStage,
+      path: List[SymphonyQLPathValue],
+      fieldType: Option[__Type],
+      scope: ConcurrentLinkedQueue[SymphonyQLError]
+    ): Future[SymphonyQLOutputValue] = {
+      def nullify(ex: Throwable): Future[SymphonyQLOutputValue] = {
+        if (ex ne NullPropagation) scope.add(fieldError(ex, path.reverse))
+        if (fieldType.exists(FieldTypes.isNonNull)) Future.failed(NullPropagation) else Future.successful(NullValue)
+      }
+      val value = drainExecutionStages(stage, path, fieldType, scope)
+      value.value match
+        case Some(Success(_))  => value
+        case Some(Failure(ex)) => nullify(ex)
+        case None              => value.recoverWith { case NonFatal(ex) => nullify(ex) }
+    }
 
-    val executionStage = loopExecuteStage(request.stage, request.selectionSet, Map())
-    drainExecutionStages(executionStage)
+    /**
+     * Drains one event of a subscription field into the response sent for it, with the errors of this event only. A
+     * failed event resolves to null, or nulls the whole data when the field is non-null, like the root field of a
+     * request.
+     */
+    def drainEvent(stage: ExecutionStage, responseKey: String, eventType: Option[__Type]): Future[EventValue] = {
+      val scope = new ConcurrentLinkedQueue[SymphonyQLError]()
+      drainNullable(stage, List(SymphonyQLPathValue.Key(responseKey)), eventType, scope).transform { event =>
+        val data = event.fold(_ => NullValue, value => SymphonyQLOutputValue.ObjectValue(List(responseKey -> value)))
+        Success(EventValue(SymphonyQLResponse(data, scope.asScala.toList).toOutputValue))
+      }
+    }
+
+    // deferred fields are drained along with the initial result, and delivered once they are all complete
+    def drainDeferred(deferred: ExecutionStage.Deferred, path: List[SymphonyQLPathValue]): Unit =
+      incremental.foreach { queue =>
+        val scope = new ConcurrentLinkedQueue[SymphonyQLError]()
+        val data  = mapCompleted(drainFields(deferred.fields, path, scope))(values =>
+          SymphonyQLOutputValue.ObjectValue(deferred.fields.map(_._1).zip(values))
+        )
+        queue.add(data.transform { data =>
+          Success(
+            SymphonyQLIncrementalPayload.Deferred(
+              data.getOrElse(NullValue),
+              path.reverse,
+              deferred.label,
+              scope.asScala.toList
+            )
+          )
+        })
+      }
+
+    /**
+     * Drains the first `initialCount` elements of a streamed list into the initial result, and delivers the other
+     * ones one by one, in order.
+     */
+    def drainStream(
+      stage: ExecutionStage,
+      path: List[SymphonyQLPathValue],
+      fieldType: Option[__Type],
+      scope: ConcurrentLinkedQueue[SymphonyQLError],
+      initialCount: Int,
+      label: Option[String]
+    ): Future[SymphonyQLOutputValue] = {
+      val elementType = fieldType.flatMap(FieldTypes.elementType)
+
+      def drainElements(stages: Seq[ExecutionStage]): Future[SymphonyQLOutputValue] = {
+        val values = stages.zipWithIndex.map { (stage, i) =>
+          drainNullable(stage, SymphonyQLPathValue.Index(i) :: path, elementType, scope)
+        }
+        mapCompleted(sequence(values.toList))(SymphonyQLOutputValue.ListValue(_))
+      }
+
+      def streamElements(stages: Source[ExecutionStage, NotUsed]): Unit =
+        incremental.foreach { queue =>
+          queue.addStream(
+            deadline
+              .fold(stages)(deadline => stages.via(deadline.killSwitch.flow))
+              .zipWithIndex
+              .mapAsync(1) { (stage, i) =>
+                val elementPath = SymphonyQLPathValue.Index(initialCount + i.toInt) :: path
+                val scope       = new ConcurrentLinkedQueue[SymphonyQLError]()
+                drainNullable(stage, elementPath, elementType, scope).transform { value =>
+                  Success(
+                    SymphonyQLIncrementalPayload.Streamed(
+                      value.fold(_ => NullValue, value => SymphonyQLOutputValue.ListValue(List(value))),
+                      elementPath.reverse,
+                      label,
+                      scope.asScala.toList
+                    )
+                  )
+                }
+              }
+          )
+        }
+
+      stage match
+        case ExecutionStage.FutureStage(future)                 =>
+          resolved(future)(drainStream(_, path, fieldType, scope, initialCount, label))
+        case ExecutionStage.ListStage(stages)                   =>
+          streamElements(Source(stages.drop(initialCount)))
+          drainElements(stages.take(initialCount))
+        case PureStage(SymphonyQLOutputValue.ListValue(values)) =>
+          streamElements(Source(values.drop(initialCount).map(PureStage(_))))
+          Future.successful(SymphonyQLOutputValue.ListValue(values.take(initialCount)))
+        case ExecutionStage.ScalaSourceStage(source)            =>
+          deadline
+            .fold(source)(deadline => source.via(deadline.killSwitch.flow))
+            .prefixAndTail(initialCount)
+            .runWith(Sink.head)
+            .flatMap { (initial, tail) =>
+              streamElements(tail)
+              drainElements(initial)
+            }
+        case ExecutionStage.JavaSourceStage(source)             =>
+          drainStream(ExecutionStage.ScalaSourceStage(source.asScala), path, fieldType, scope, initialCount, label)
+        case other                                              =>
+          drainExecutionStages(other, path, fieldType, scope)
+    }
+
+    // the caller dispatches the keys reached by the first level itself
+    val executionStage =
+      if (dispatch) executeAndDispatch(request.stage, request.plan, Map())
+      else loopExecuteStage(request.stage, request.plan, Map())
+    val response       = mapCompleted(drainNullable(executionStage, Nil, None, errors))(data =>
+      SymphonyQLResponse(data, errors.asScala.toList)
+    )
+    deadline.foreach { deadline =>
+      val finished: Future[Any] = incremental.fold(response)(queue => response.flatMap(_ => queue.drained))
+      if (finished.isCompleted) deadline.cancel() else finished.onComplete(_ => deadline.cancel())
+    }
+    response
   }
 
-  private def drainExecutionStages(stage: ExecutionStage): Source[SymphonyQLOutputValue, NotUsed] =
-    stage match
-      case ExecutionStage.FutureStage(future)                                 =>
-        Source.future(future).flatMapConcat(drainExecutionStages)
-      case ExecutionStage.ScalaSourceStage(source)                            =>
-        val sourceStage = source.flatMapConcat(drainExecutionStages)
-        Source.single(SymphonyQLOutputValue.StreamValue(sourceStage))
-      case ExecutionStage.JavaSourceStage(source)                             =>
-        drainExecutionStages(ExecutionStage.ScalaSourceStage(source.asScala))
-      case ExecutionStage.ListStage(stages)                                   =>
-        val sourceList = stages.map(drainExecutionStages)
-        Source.zipN(sourceList).map(s => SymphonyQLOutputValue.ListValue(s.toList))
-      case ExecutionStage.ObjectStage(stages: List[(String, ExecutionStage)]) =>
-        val sourceList = stages.map(kv => drainExecutionStages(kv._2).map(s => kv._1 -> s))
-        Source.zipN(sourceList).map(s => SymphonyQLOutputValue.ObjectValue(s.toList))
-      case PureStage(value)                                                   => Source.single(value)
+  /**
+   * Fails the fields up to the closest nullable one, once the error of a non-null field has been reported.
+   */
+  private case object NullPropagation extends Exception with NoStackTrace
+
+  private def fieldError(ex: Throwable, path: List[SymphonyQLPathValue]): SymphonyQLError =
+    ex match
+      case error: SymphonyQLError.ExecutionError if error.path.isEmpty => error.copy(path = path)
+      case error: SymphonyQLError.ExecutionError                       => error
+      case error: SymphonyQLError                                      =>
+        SymphonyQLError.ExecutionError(error.msg, path, innerThrowable = Some(error))
+      case ex                                                          =>
+        SymphonyQLError.ExecutionError(Option(ex.getMessage).getOrElse(ex.toString), path, innerThrowable = Some(ex))
+
+  private def sequence(
+    futures: List[Future[SymphonyQLOutputValue]]
+  )(implicit ec: ExecutionContext): Future[List[SymphonyQLOutputValue]] =
+    if (futures.forall(_.value.exists(_.isSuccess))) Future.successful(futures.map(_.value.get.get))
+    else Future.sequence(futures)
+
+  /**
+   * `Future.map` always hops to the execution context, even when the future is already completed.
+   */
+  private[symphony] def mapCompleted[A, B](future: Future[A])(f: A => B)(implicit ec: ExecutionContext): Future[B] =
+    future.value match
+      case Some(value) => Future.fromTry(value.map(f))
+      case None        => future.map(f)
 
   private def extractVariables(
     arguments: Map[String, SymphonyQLInputValue],
     variableDefinitions: List[VariableDefinition],
     variableValues: Map[String, SymphonyQLInputValue]
   ): Map[String, SymphonyQLInputValue] =
-    arguments.map { (k, v) =>
-      k -> (v match {
-        case SymphonyQLInputValue.VariableValue(name) =>
-          variableValues.get(name) orElse variableDefinitions.find(_.name == name).flatMap(_.defaultValue) getOrElse v
-        case value                                    => value
-      })
-    }
+    arguments.map((k, v) => k -> resolveVariable(v, variableDefinitions, variableValues))
 
-  private def mergeSelections(
-    selections: List[Selection],
-    name: String,
-    fragments: Map[String, FragmentDefinition],
+  private def resolveVariable(
+    value: SymphonyQLInputValue,
+    variableDefinitions: List[VariableDefinition],
     variableValues: Map[String, SymphonyQLInputValue]
-  ): List[Field] = {
-    val fields = selections.flatMap {
-      case field: Field                   => List(field)
-      case InlineFragment(tpc, _, select) =>
-        val isAvailableType = tpc.fold(true)(_.name == name)
-        if (isAvailableType) mergeSelections(select, name, fragments, variableValues) else List.empty
-      case FragmentSpread(spreadName, _)  =>
-        fragments.get(spreadName) match {
-          case Some(fragment) if fragment.typeCondition.name == name =>
-            mergeSelections(fragment.selectionSet, name, fragments, variableValues)
-          case _                                                     => List.empty
-        }
-    }
-    fields
-      .foldLeft(ListMap.empty[String, Field]) { (result, field) =>
-        result.updated(
-          field.name,
-          result
-            .get(field.name)
-            .fold(field)(f => f.copy(selectionSet = f.selectionSet ++ field.selectionSet))
-        )
-      }
-      .values
-      .toList
-  }
+  ): SymphonyQLInputValue =
+    value match
+      case SymphonyQLInputValue.VariableValue(name) =>
+        variableValues.get(name) orElse variableDefinitions.find(_.name == name).flatMap(_.defaultValue) getOrElse value
+      case value                                    => value
 }
@@ -0,0 +1,39 @@
+package symphony.execution
+
+import symphony.parser.adt.introspection.*
+
+import scala.collection.concurrent.TrieMap
+
+/**
+ * The types of the fields of a schema that have non-null positions, looked up the first time an object type is met.
+ * Fields whose type is nullable at every level are left out, as null values never need to propagate past them.
+ */
+final class FieldTypes private[symphony] (types: Map[String, __Type]) {
+
+  private val fields = TrieMap.empty[String, Map[String, __Type]]
+
+  def apply(typeName: String, fieldName: String): Option[__Type] =
+    fields.getOrElseUpdate(typeName, nonNullFields(typeName)).get(fieldName)
+
+  private def nonNullFields(typeName: String): Map[String, __Type] =
+    types
+      .get(typeName)
+      .flatMap(_.fields(__DeprecatedArgs(Some(true))))
+      .getOrElse(Nil)
+      .map(field => field.name -> field.`type`())
+      .filter((_, tpe) => FieldTypes.hasNonNull(tpe))
+      .toMap
+}
+
+object FieldTypes {
+
+  private[execution] def isNonNull(tpe: __Type): Boolean = tpe.kind == __TypeKind.NON_NULL
+
+  /**
+   * The type of the elements of a list type, if `tpe` is one.
+   */
+  private[execution] def elementType(tpe: __Type): Option[__Type] =
+    (if (isNonNull(tpe)) tpe.ofType else Some(tpe)).filter(_.kind == __TypeKind.LIST).flatMap(_.ofType)
+
+  private def hasNonNull(tpe: __Type): Boolean = isNonNull(tpe) || elementType(tpe).exists(hasNonNull)
+}
@@ -0,0 +1,57 @@
+package symphony.execution
+
+import scala.collection.mutable
+import scala.concurrent.*
+
+/**
+ * Counts the resolvers of one request that are being called or whose future is pending. Once `maxInFlight` is
+ * reached, resolvers wait for a slot instead of being called, and each released slot is handed over to the oldest of
+ * them. Once failed, see [[fail]], resolvers no longer wait for a slot.
+ */
+private[execution] final class FutureLimiter(maxInFlight: Int) {
+
+  private var inFlight = 0
+  private val waiting  = mutable.Queue.empty[Promise[Unit]]
+  private var failure  = Option.empty[Throwable]
+
+  /**
+   * Takes a slot, or returns a future completed once a slot has been taken on behalf of the caller. Either way the
+   * caller must release it, unless the future fails.
+   */
+  def acquire(): Option[Future[Unit]] = synchronized {
+    if (failure.nonEmpty) failure.map(Future.failed)
+    else if (inFlight < maxInFlight) {
+      inFlight += 1
+      None
+    } else {
+      val promise = Promise[Unit]()
+      waiting.enqueue(promise)
+      Some(promise.future)
+    }
+  }
+
+  def release(): Unit = {
+    val next = synchronized {
+      if (waiting.nonEmpty) Some(waiting.dequeue())
+      else {
+        inFlight -= 1
+        None
+      }
+    }
+    next.foreach(_.success(()))
+  }
+
+  /**
+   * Fails the resolvers waiting for a slot, and those that would wait from now on, with `ex`. They hold no slot.
+   */
+  def fail(ex: Throwable): Unit = {
+    val failed = synchronized {
+      failure = Some(ex)
+      waiting.dequeueAll(_ => true)
+    }
+    failed.foreach(_.failure(ex))
+  }
+
+  def releaseOnComplete(future: Future[?]): Unit =
+    future.onComplete(_ => release())(ExecutionContext.parasitic)
+}
@@ -0,0 +1,155 @@
+package symphony.execution
+
+import org.apache.pekko.NotUsed
+import org.apache.pekko.stream.*
+import org.apache.pekko.stream.scaladsl.*
+import symphony.SymphonyQLIncrementalPayload
+import symphony.SymphonyQLIncrementalResult.Subsequent
+
+import scala.collection.mutable
+import scala.concurrent.*
+
+/**
+ * Collects the deferred fragments and streamed elements of one request while it is drained, and hands them over in
+ * the order they resolve. Payloads resolving while the previous result is consumed are delivered together.
+ *
+ * Streamed elements are only pulled while fewer than `bufferSize` payloads wait for the consumer, so a slow consumer
+ * backpressures the streams rather than having their elements buffered. Once the consumer is gone, see [[cancel]], the
+ * streams are stopped.
+ *
+ * Nested payloads are added while their parent is drained, so the queue is only known to be exhausted once the initial
+ * result is complete, see [[start]].
+ */
+private[execution] final class IncrementalQueue(bufferSize: Int = IncrementalQueue.DefaultBufferSize)(implicit
+  materializer: Materializer
+) {
+
+  private var pending   = 0
+  private var started   = false
+  private var hasNext   = false
+  private var cancelled = false
+  private val ready     = mutable.Queue.empty[SymphonyQLIncrementalPayload]
+  private val room      = mutable.Queue.empty[Promise[Unit]]
+  private var waiting   = Option.empty[Promise[Option[Subsequent]]]
+  private val finished  = Promise[Unit]()
+
+  private val killSwitch = KillSwitches.shared("symphony-incremental-delivery")
+
+  def add(payload: Future[SymphonyQLIncrementalPayload]): Unit = {
+    synchronized(pending += 1)
+    payload.onComplete(payload => complete(payload.toOption, done = true))(ExecutionContext.parasitic)
+  }
+
+  def addStream(payloads: Source[SymphonyQLIncrementalPayload, NotUsed]): Unit = {
+    synchronized(pending += 1)
+    payloads
+      .mapAsync(1)(offer)
+      .via(killSwitch.flow)
+      .runWith(Sink.ignore)
+      .onComplete(_ => complete(None, done = true))(ExecutionContext.parasitic)
+  }
+
+  /**
+   * Called once the initial result is complete, returns whether subsequent results follow.
+   */
+  def start(): Boolean = {
+    val exhausted = synchronized {
+      started = true
+      hasNext = pending > 0 || ready.nonEmpty
+      !hasNext
+    }
+    if (exhausted) finished.trySuccess(())
+    !exhausted
+  }
+
+  /**
+   * Completes once every payload has been resolved.
+   */
+  def drained: Future[Unit] = finished.future
+
+  def next(): Future[Option[Subsequent]] = {
+    val (result, freed) = synchronized {
+      if (ready.nonEmpty) (Future.successful(Some(subsequent())), freeRoom())
+      else if (pending == 0) (Future.successful(last()), Nil)
+      else {
+        val promise = Promise[Option[Subsequent]]()
+        waiting = Some(promise)
+        (promise.future, Nil)
+      }
+    }
+    freed.foreach(_.trySuccess(()))
+    result
+  }
+
+  /**
+   * Stops the streams once nobody consumes the results anymore, dropping the payloads not delivered yet.
+   */
+  def cancel(): Unit = {
+    val freed = synchronized {
+      cancelled = true
+      ready.clear()
+      freeRoom()
+    }
+    killSwitch.shutdown()
+    freed.foreach(_.trySuccess(()))
+  }
+
+  // completes once the payload has been added, as soon as the buffer has room for it
+  private def offer(payload: SymphonyQLIncrementalPayload): Future[Unit] = {
+    val freed = synchronized {
+      if (cancelled || ready.size < bufferSize) None
+      else {
+        val promise = Promise[Unit]()
+        room.enqueue(promise)
+        Some(promise.future)
+      }
+    }
+    freed match
+      case None        =>
+        complete(Some(payload), done = false)
+        Future.unit
+      case Some(freed) => freed.map(_ => complete(Some(payload), done = false))(ExecutionContext.parasitic)
+  }
+
+  private def complete(payload: Option[SymphonyQLIncrementalPayload], done: Boolean): Unit = {
+    val (waiter, result, freed, exhausted) = synchronized {
+      if (done) pending -= 1
+      if (!cancelled) payload.foreach(ready.enqueue)
+      val exhausted = started && pending == 0
+      waiting.filter(_ => ready.nonEmpty || pending == 0) match
+        case None         => (None, None, Nil, exhausted)
+        case Some(waiter) =>
+          waiting = None
+          if (ready.nonEmpty) (Some(waiter), Some(subsequent()), freeRoom(), exhausted)
+          else (Some(waiter), last(), Nil, exhausted)
+    }
+    waiter.foreach(_.success(result))
+    freed.foreach(_.trySuccess(()))
+    if (exhausted) finished.trySuccess(())
+  }
+
+  // callers hold the lock
+  private def subsequent(): Subsequent = {
+    val payloads = ready.dequeueAll(_ => true).toList
+    hasNext = pending > 0
+    Subsequent(payloads, hasNext)
+  }
+
+  // callers hold the lock, and complete the promises once they released it
+  private def freeRoom(): List[Promise[Unit]] = room.dequeueAll(_ => true).toList
+
+  // a stream may end without any further element, after `hasNext` was announced
+  private def last(): Option[Subsequent] =
+    if (hasNext) {
+      hasNext = false
+      Some(Subsequent(Nil, hasNext = false))
+    } else None
+}
+
+private[execution] object IncrementalQueue {
+
+  /**
+   * The number of payloads waiting for the consumer beyond which streams stop being pulled.
+   */
+  val DefaultBufferSize: Int = 16
+}
@@ -0,0 +1,53 @@
+package symphony.execution
+
+import org.apache.pekko.actor.ActorSystem
+import org.apache.pekko.stream.*
+import symphony.schema.ExecutionStage
+
+import java.util.concurrent.TimeoutException
+import scala.concurrent.*
+import scala.concurrent.duration.FiniteDuration
+
+/**
+ * Bounds the execution of one request. Once expired, pending stages are no longer waited for, the streams
+ * materialized through [[killSwitch]] are aborted and no further resolver is called.
+ */
+private[execution] final class RequestDeadline(val timeout: FiniteDuration)(implicit
+  actorSystem: ActorSystem,
+  ec: ExecutionContext
+) {
+
+  private val expiry = Promise[ExecutionStage]()
+
+  val killSwitch: SharedKillSwitch = KillSwitches.shared("symphony-request-deadline")
+
+  private val timer = actorSystem.scheduler.scheduleOnce(timeout)(expire())
+
+  def expired: Boolean = expiry.isCompleted
+
+  /**
+   * Fails with a `TimeoutException` once the deadline expires, unless `future` completed before.
+   */
+  def race(future: Future[ExecutionStage]): Future[ExecutionStage] =
+    Future.firstCompletedOf(List(future, expiry.future))(ExecutionContext.parasitic)
+
+  /**
+   * The stage of the work reached once the deadline expired, failing with the `TimeoutException` of the deadline.
+   */
+  def timedOut: ExecutionStage = ExecutionStage.FutureStage(expiry.future)
+
+  /**
+   * Calls `f` with the `TimeoutException` of the deadline once it expires.
+   */
+  def onExpiry(f: Throwable => Unit): Unit = expiry.future.failed.foreach(f)(ExecutionContext.parasitic)
+
+  def cancel(): Unit = {
+    timer.cancel()
+    ()
+  }
+
+  private def expire(): Unit = {
+    val ex = new TimeoutException(s"Execution timed out after $timeout")
+    if (expiry.tryFailure(ex)) killSwitch.abort(ex)
+  }
+}
@@ -0,0 +1,21 @@
+package symphony.execution
+
+import symphony.parser.SymphonyQLInputValue
+
+/**
+ * Identifies one resolver call: the same parent object, compared by reference, the same field and the same arguments.
+ */
+private[execution] final class ResolverKey(
+  val parent: Any,
+  val field: String,
+  val arguments: Map[String, SymphonyQLInputValue]
+) {
+  override val hashCode: Int = (31 * System.identityHashCode(parent) + field.hashCode) * 31 + arguments.hashCode
+
+  override def equals(other: Any): Boolean =
+    other match
+      case key: ResolverKey =>
+        hashCode == key.hashCode && (parent.asInstanceOf[AnyRef] eq key.parent.asInstanceOf[AnyRef]) &&
+        field == key.field && arguments == key.arguments
+      case _                => false
+}
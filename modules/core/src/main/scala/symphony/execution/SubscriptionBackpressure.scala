@@ -0,0 +1,70 @@
+package symphony.execution
+
+import org.apache.pekko.NotUsed
+import org.apache.pekko.stream.OverflowStrategy
+import org.apache.pekko.stream.scaladsl.Source
+
+import scala.concurrent.duration.*
+
+/**
+ * What a subscription does with the events its subscriber is too slow to receive. Without one, the subscriber
+ * backpressures the source of the subscription, or the shared source of all of its subscribers.
+ *
+ * Each policy keeps pulling events whatever the pace of the subscriber, and holds a bounded number of them.
+ */
+sealed trait SubscriptionBackpressure {
+
+  private[execution] def apply[A](events: Source[A, NotUsed]): Source[A, NotUsed]
+}
+
+object SubscriptionBackpressure {
+
+  /**
+   * Keeps up to `size` events, dropping the oldest one to make room for a new one.
+   */
+  def dropHead(size: Int): SubscriptionBackpressure = Buffer(size, OverflowStrategy.dropHead)
+
+  /**
+   * Keeps up to `size` events, dropping the new ones while full.
+   */
+  def dropNew(size: Int): SubscriptionBackpressure = Buffer(size, OverflowStrategy.dropNew)
+
+  /**
+   * Keeps up to `size` events, and fails the subscription once a new one does not fit.
+   */
+  def fail(size: Int): SubscriptionBackpressure = Buffer(size, OverflowStrategy.fail)
+
+  /**
+   * Keeps only the latest event, replaced by each new one until the subscriber takes it.
+   */
+  val conflate: SubscriptionBackpressure = Conflate
+
+  /**
+   * Sends at most `elements` events `per` interval, the latest event received in between.
+   */
+  def throttle(elements: Int, per: FiniteDuration): SubscriptionBackpressure = Throttle(elements, per)
+
+  /**
+   * Java API
+   */
+  def throttle(elements: Int, per: java.time.Duration): SubscriptionBackpressure = throttle(elements, per.toNanos.nanos)
+
+  private final case class Buffer(size: Int, overflow: OverflowStrategy) extends SubscriptionBackpressure {
+    require(size > 0, s"size must be positive, but was $size")
+
+    private[execution] def apply[A](events: Source[A, NotUsed]): Source[A, NotUsed] = events.buffer(size, overflow)
+  }
+
+  private case object Conflate extends SubscriptionBackpressure {
+    private[execution] def apply[A](events: Source[A, NotUsed]): Source[A, NotUsed] =
+      events.conflate((_, latest) => latest)
+  }
+
+  private final case class Throttle(elements: Int, per: FiniteDuration) extends SubscriptionBackpressure {
+    require(elements > 0, s"elements must be positive, but was $elements")
+    require(per > Duration.Zero, s"per must be positive, but was $per")
+
+    private[execution] def apply[A](events: Source[A, NotUsed]): Source[A, NotUsed] =
+      events.conflate((_, latest) => latest).throttle(elements, per)
+  }
+}
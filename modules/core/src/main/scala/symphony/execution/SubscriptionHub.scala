@@ -0,0 +1,124 @@
+package symphony.execution
+
+import org.apache.pekko.NotUsed
+import org.apache.pekko.stream.*
+import org.apache.pekko.stream.scaladsl.*
+import symphony.parser.SymphonyQLInputValue
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import scala.annotation.tailrec
+import scala.concurrent.ExecutionContext
+
+/**
+ * Runs the source of a subscription field once for all the subscribers of the same field, with the same arguments,
+ * selections and variables, however many they are. The first subscriber starts the source, the next ones attach to it
+ * and receive the events emitted from then on, and the last one leaving stops it.
+ *
+ * The shared source emits the events already executed, so every subscriber receives the same values, and transports
+ * can serialize each of them once.
+ *
+ * Events are broadcast to all the subscribers at the pace of the slowest one, with at most `bufferSize` events in
+ * between. A source that completes or fails does so for all of its subscribers, and is started again by the next one.
+ */
+final class SubscriptionHub private[symphony] (bufferSize: Int) {
+
+  private val upstreams = new ConcurrentHashMap[SubscriptionKey, Upstream]()
+
+  /**
+   * The source of one subscriber, attached to the shared run of `source` when materialized. `source` is only run when
+   * no other subscriber of `key` is attached.
+   */
+  private[execution] def subscribe(
+    key: SubscriptionKey,
+    source: Source[ExecutionStage, ?]
+  ): Source[ExecutionStage, NotUsed] =
+    Source
+      .fromMaterializer { (materializer, _) =>
+        val upstream = attach(key, source, materializer)
+        upstream.events.watchTermination() { (_, done) =>
+          done.onComplete(_ => upstream.release())(ExecutionContext.parasitic)
+          NotUsed
+        }
+      }
+      .mapMaterializedValue(_ => NotUsed)
+
+  /**
+   * The number of sources running for subscribers.
+   */
+  def size: Int = upstreams.size
+
+  @tailrec
+  private def attach(key: SubscriptionKey, source: Source[ExecutionStage, ?], materializer: Materializer): Upstream = {
+    val upstream = upstreams.computeIfAbsent(key, _ => new Upstream(key, source, materializer))
+    if (upstream.acquire()) upstream
+    else {
+      upstreams.remove(key, upstream)
+      attach(key, source, materializer)
+    }
+  }
+
+  private final class Upstream(key: SubscriptionKey, source: Source[ExecutionStage, ?], materializer: Materializer) {
+
+    // the number of attached subscribers, negative once stopped
+    private val subscribers = new AtomicInteger()
+
+    private val ((killSwitch, done), broadcast) =
+      source
+        .viaMat(KillSwitches.single)(Keep.right)
+        .watchTermination()(Keep.both)
+        .toMat(BroadcastHub.sink[ExecutionStage](bufferSize))(Keep.both)
+        .run()(materializer)
+
+    // not on the calling thread, which may still be adding this upstream
+    done.onComplete(_ => stop())(materializer.executionContext)
+
+    val events: Source[ExecutionStage, NotUsed] = broadcast
+
+    @tailrec
+    def acquire(): Boolean = {
+      val count = subscribers.get()
+      if (count < 0) false
+      else if (subscribers.compareAndSet(count, count + 1)) true
+      else acquire()
+    }
+
+    def release(): Unit =
+      if (subscribers.decrementAndGet() == 0 && subscribers.compareAndSet(0, -1)) {
+        upstreams.remove(key, this)
+        killSwitch.shutdown()
+      }
+
+    private def stop(): Unit = {
+      subscribers.set(-1)
+      upstreams.remove(key, this)
+    }
+  }
+}
+
+/**
+ * Identifies the shared source of a subscription field: the same field of the same type, with the same arguments once
+ * variables are resolved, and the same selections, fragments expanded. As events are executed once, into the response
+ * sent for them, the alias of the field and the variables used by the selections must be the same as well. The timeout
+ * of the requests does not apply to subscriptions, so it does not matter.
+ */
+private[execution] final class SubscriptionKey(
+  val typeName: String,
+  val field: String,
+  val responseKey: String,
+  val arguments: Map[String, SymphonyQLInputValue],
+  val selection: SelectionPlan,
+  val variables: Map[String, SymphonyQLInputValue]
+) {
+  override val hashCode: Int =
+    (((31 * typeName.hashCode + field.hashCode) * 31 + arguments.hashCode) * 31 + selection.expandedHash) * 31 +
+      (31 * responseKey.hashCode + variables.hashCode)
+
+  override def equals(other: Any): Boolean =
+    other match
+      case key: SubscriptionKey =>
+        hashCode == key.hashCode && typeName == key.typeName && field == key.field && arguments == key.arguments &&
+        responseKey == key.responseKey && variables == key.variables &&
+        ((selection eq key.selection) || selection.expanded == key.selection.expanded)
+      case _                    => false
+}
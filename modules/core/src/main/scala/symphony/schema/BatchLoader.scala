@@ -0,0 +1,56 @@
+package symphony.schema
+
+import java.util.concurrent.CompletionStage
+import scala.concurrent.Future
+import scala.jdk.CollectionConverters.*
+import scala.jdk.FutureConverters.*
+
+/**
+ * Loads many keys at once. Within one request, the keys of all the [[Batched]] values reached at the same point of the
+ * execution are deduplicated and loaded together, in batches of at most `maxBatchSize` keys, and loaded values are
+ * reused for the rest of the request. Keys missing from the result resolve to null.
+ */
+trait BatchLoader[K, V] {
+
+  def maxBatchSize: Int = Int.MaxValue
+
+  def loadMany(keys: List[K]): Future[Map[K, V]]
+
+  final def load(key: K): Batched[V] = new Batched(this.asInstanceOf[BatchLoader[Any, V]], key)
+}
+
+object BatchLoader {
+
+  def apply[K, V](maxBatchSize: Int = Int.MaxValue)(loadMany: List[K] => Future[Map[K, V]]): BatchLoader[K, V] = {
+    val _maxBatchSize = maxBatchSize
+    val _loadMany     = loadMany
+    new BatchLoader[K, V] {
+      override def maxBatchSize: Int                           = _maxBatchSize
+      override def loadMany(keys: List[K]): Future[Map[K, V]] = _loadMany(keys)
+    }
+  }
+
+  /**
+   * Java API
+   */
+  def create[K, V](
+    maxBatchSize: Int,
+    loadMany: java.util.function.Function[java.util.List[K], CompletionStage[java.util.Map[K, V]]]
+  ): BatchLoader[K, V] =
+    apply[K, V](maxBatchSize)(keys =>
+      loadMany.apply(keys.asJava).asScala.map(_.asScala.toMap)(scala.concurrent.ExecutionContext.parasitic)
+    )
+
+  /**
+   * Java API
+   */
+  def create[K, V](
+    loadMany: java.util.function.Function[java.util.List[K], CompletionStage[java.util.Map[K, V]]]
+  ): BatchLoader[K, V] =
+    create(Int.MaxValue, loadMany)
+}
+
+/**
+ * A value to be loaded by a [[BatchLoader]], see [[BatchLoader.load]].
+ */
+final class Batched[V] private[schema] (val loader: BatchLoader[Any, V], val key: Any)
@@ -11,7 +11,7 @@ import symphony.schema.Stage.*
 
 object Introspector extends IntrospectionSchemaDerivation {
 
-  private val directives = List(
+  private[symphony] val directives = List(
     __Directive(
       "skip",
       Some(
@@ -30,6 +30,33 @@ object Introspector extends IntrospectionSchemaDerivation {
       _ => List(__InputValue("if", None, () => Types.boolean.nonNull, None)),
       isRepeatable = false
     ),
+    __Directive(
+      "defer",
+      Some(
+        "The @defer directive may be provided for fragment spreads and inline fragments to inform the executor to delay the execution of the current fragment to indicate deprioritization of the current fragment."
+      ),
+      Set(__DirectiveLocation.FRAGMENT_SPREAD, __DirectiveLocation.INLINE_FRAGMENT),
+      _ =>
+        List(
+          __InputValue("if", None, () => Types.boolean.nonNull, Some("true")),
+          __InputValue("label", None, () => Types.string, None)
+        ),
+      isRepeatable = false
+    ),
+    __Directive(
+      "stream",
+      Some(
+        "The @stream directive may be provided for a field of List type so that the backend can leverage technology such as asynchronous iterators to provide a partial list in the initial response, and additional list items in subsequent responses."
+      ),
+      Set(__DirectiveLocation.FIELD),
+      _ =>
+        List(
+          __InputValue("if", None, () => Types.boolean.nonNull, Some("true")),
+          __InputValue("label", None, () => Types.string, None),
+          __InputValue("initialCount", None, () => Types.int.nonNull, Some("0"))
+        ),
+      isRepeatable = false
+    ),
     __Directive(
       "specifiedBy",
       Some(
@@ -44,6 +71,11 @@ object Introspector extends IntrospectionSchemaDerivation {
   private val tpe  = __introspectionSchema.tpe()
   private val root = RootType(tpe, None, None)
 
+  /**
+   * The root type introspection queries are validated against.
+   */
+  private[symphony] lazy val introspectionRootType: RootType = RootType(introspection.lazyType(), None, None)
+
   def introspect(rootType: RootType): RootSchema = {
     val types    = (rootType.types ++ root.types - "__Introspection").values.toList.sortBy(_.name.getOrElse(""))
     val resolver = __Introspection(
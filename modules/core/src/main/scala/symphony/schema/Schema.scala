@@ -12,7 +12,7 @@ import symphony.schema.Stage.*
 import symphony.schema.derivation.*
 
 import scala.annotation.*
-import scala.concurrent.Future
+import scala.concurrent.{ ExecutionContext, Future }
 import scala.jdk.CollectionConverters.*
 import scala.jdk.FunctionConverters.*
 import scala.jdk.FutureConverters.*
@@ -71,7 +71,7 @@ trait SchemaFactory {
   def createFunctionUnit[A](
     schema: Schema[A]
   ): Schema[java.util.function.Supplier[A]] =
-    mkFunctionUnit(schema).contramap(_.asScala)
+    javaResolver(mkFunctionUnit(schema).contramap(_.asScala))
 
   /**
    * Java API
@@ -83,7 +83,17 @@ trait SchemaFactory {
     argumentExtractor: ArgumentExtractor[A],
     outputSchema: Schema[B]
   ): Schema[java.util.function.Function[A, B]] =
-    mkFunction(argumentExtractor, inputSchema, outputSchema).contramap(_.asScala)
+    javaResolver(mkFunction(argumentExtractor, inputSchema, outputSchema).contramap(_.asScala))
+
+  private def javaResolver[A](schema: Schema[A]): Schema[A] = new Schema[A] {
+    override def optional: Boolean             = schema.optional
+    override def arguments: List[__InputValue] = schema.arguments
+    override def tpe(isInput: Boolean): __Type = schema.lazyType(isInput)
+    override def analyze(value: A): Stage      =
+      schema.analyze(value) match
+        case FunctionStage(resolver) => FunctionStage(new JavaResolver(resolver))
+        case stage                   => stage
+  }
 
   @unused
   def createSource[A](schema: Schema[A]): Schema[javadsl.Source[A, NotUsed]] =
@@ -148,6 +158,12 @@ trait SchemaFactory {
   def createCompletionStage[A](schema: Schema[A]): Schema[java.util.concurrent.CompletionStage[A]] =
     mkFuture[A](schema).contramap(_.asScala)
 
+  /**
+   * Java API
+   */
+  @unused
+  def createBatched[A](schema: Schema[A]): Schema[Batched[A]] = mkBatched[A](schema)
+
   /**
    * Using in APT
    */
@@ -277,6 +293,8 @@ trait GenericSchema extends SchemaDerivation {
     directives: List[Directive] = List.empty
   ): Schema[A] =
     new Schema[A] {
+      private lazy val outputFields: List[(String, A => Stage)] = fields(false).map((f, aToStage) => f.name -> aToStage)
+
       override def tpe(isInput: Boolean): __Type =
         if (isInput)
           Types.mkInputObject(
@@ -290,12 +308,16 @@ trait GenericSchema extends SchemaDerivation {
         else
           Types.mkObject(Some(name), description, fields(isInput).map(_._1), directives)
 
+      /**
+       * Fields are only analyzed when the executor visits them, that is when they are selected.
+       */
       override def analyze(value: A): Stage =
         ObjectStage(
           name,
-          fields(false).map { case (f, aToStage) =>
-            f.name -> aToStage(value)
-          }.toMap
+          outputFields.map { case (fieldName, aToStage) =>
+            fieldName -> (() => aToStage(value))
+          }.toMap,
+          Some(value)
         )
     }
 
@@ -324,8 +346,22 @@ trait GenericSchema extends SchemaDerivation {
     override def analyze(value: List[A]): Stage = ListStage(value.map(schema.analyze))
   }
 
-  implicit def mkFuture[A](implicit schema: Schema[A]): Schema[Future[A]] =
-    mkSource[A](schema).contramap[Future[A]](scaladsl.Source.future)
+  implicit def mkFuture[A](implicit schema: Schema[A]): Schema[Future[A]] = new Schema[Future[A]] {
+    override def optional: Boolean                = schema.optional
+    override def tpe(isInput: Boolean): __Type    = schema.lazyType(isInput)
+    override def analyze(value: Future[A]): Stage = FutureStage(value.map(schema.analyze)(ExecutionContext.parasitic))
+  }
+
+  implicit def mkBatched[A](implicit schema: Schema[A]): Schema[Batched[A]] = new Schema[Batched[A]] {
+    override def optional: Boolean                 = true
+    override def tpe(isInput: Boolean): __Type     = schema.lazyType(isInput)
+    override def analyze(value: Batched[A]): Stage =
+      BatchStage(
+        value.loader.asInstanceOf[BatchLoader[Any, Any]],
+        value.key,
+        _.fold(NullStage)(v => schema.analyze(v.asInstanceOf[A]))
+      )
+  }
 
   implicit def mkFunction[A, B](implicit
     argumentExtractor: ArgumentExtractor[A],
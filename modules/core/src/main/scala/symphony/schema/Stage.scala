@@ -6,6 +6,7 @@ import org.apache.pekko.stream.scaladsl
 import org.apache.pekko.stream.javadsl
 import symphony.parser.*
 import symphony.parser.SymphonyQLValue.NullValue
+import symphony.parser.adt.introspection.__Type
 
 import java.util
 import scala.jdk.CollectionConverters.*
@@ -17,37 +18,51 @@ object Stage {
 
   def mergeStages(stage1: Stage, stage2: Stage): Stage =
     (stage1, stage2) match {
-      case (ObjectStage(name, fields1), ObjectStage(_, fields2)) =>
+      case (ObjectStage(name, fields1, _), ObjectStage(_, fields2, _)) =>
         val r = fields1 ++ fields2
-        ObjectStage(name, r)
-      case (ObjectStage(_, _), _)                                => stage1
-      case _                                                     => stage2
+        ObjectStage(name, r, None)
+      case (ObjectStage(_, _, _), _)                                   => stage1
+      case _                                                           => stage2
     }
 
   val NullStage: PureStage = PureStage(NullValue)
 
-  final case class ScalaSourceStage(source: scaladsl.Source[Stage, NotUsed])        extends Stage
-  final case class JavaSourceStage(source: javadsl.Source[Stage, NotUsed])          extends Stage
-  final case class FutureStage(future: Future[Stage])                               extends Stage
-  final case class FunctionStage(stage: Map[String, SymphonyQLInputValue] => Stage) extends Stage
-  final case class ListStage(stages: List[Stage])                                   extends Stage
-  final case class ObjectStage(name: String, fields: Map[String, Stage])            extends Stage
+  /**
+   * A resolver from the Java API. Those are usually blocking, and can be run on virtual threads.
+   */
+  final class JavaResolver(resolver: Map[String, SymphonyQLInputValue] => Stage)
+      extends (Map[String, SymphonyQLInputValue] => Stage) {
+    override def apply(arguments: Map[String, SymphonyQLInputValue]): Stage = resolver(arguments)
+  }
+
+  final case class ScalaSourceStage(source: scaladsl.Source[Stage, NotUsed])                        extends Stage
+  final case class JavaSourceStage(source: javadsl.Source[Stage, NotUsed])                          extends Stage
+  final case class FutureStage(future: Future[Stage])                                               extends Stage
+  final case class FunctionStage(stage: Map[String, SymphonyQLInputValue] => Stage)                 extends Stage
+  final case class ListStage(stages: List[Stage])                                                   extends Stage
+  final case class ObjectStage(name: String, fields: Map[String, () => Stage], parent: Option[Any]) extends Stage
+  final case class BatchStage(loader: BatchLoader[Any, Any], key: Any, stage: Option[Any] => Stage) extends Stage
 
   def createNull(): Stage                                                                                           = NullStage
   def createPure(value: SymphonyQLOutputValue): Stage                                                               = PureStage(value)
   def createSource(value: javadsl.Source[Stage, NotUsed]): Stage                                                    = JavaSourceStage(value)
   def createList(value: java.util.List[Stage]): Stage                                                               = ListStage(value.asScala.toList)
   def createCompletionStage(value: java.util.concurrent.CompletionStage[Stage]): Stage                              = FutureStage(value.asScala)
-  def createObject(name: String, fields: java.util.Map[String, Stage]): Stage                                       = ObjectStage(name, fields.asScala.toMap)
   def createFunction(value: java.util.function.Function[java.util.Map[String, SymphonyQLInputValue], Stage]): Stage =
-    FunctionStage(new (Map[String, SymphonyQLInputValue] => Stage)() {
-      override def apply(v: Map[String, SymphonyQLInputValue]): Stage =
-        value.apply(v.asJava)
-    })
+    FunctionStage(new JavaResolver(v => value.apply(v.asJava)))
+  def createObject(name: String, fields: java.util.Map[String, Stage]): Stage                                       =
+    ObjectStage(name, fields.asScala.map((k, v) => k -> (() => v)).toMap, None)
+
+  /**
+   * Fields are only evaluated when they are selected by the query.
+   */
+  def createLazyObject(name: String, fields: java.util.Map[String, java.util.function.Supplier[Stage]]): Stage =
+    ObjectStage(name, fields.asScala.map((k, v) => k -> (() => v.get())).toMap, None)
 
   def createScalaFunction(value: Map[String, SymphonyQLInputValue] => Stage): Stage = FunctionStage(value)
   def createScalaSource(value: scaladsl.Source[Stage, NotUsed]): Stage              = ScalaSourceStage(value)
   def createScalaList(value: List[Stage]): Stage                                    = ListStage(value)
+  def createScalaObject(name: String, fields: Map[String, () => Stage]): Stage      = ObjectStage(name, fields, None)
   def createScalaFuture(value: Future[Stage]): Stage                                = FutureStage(value)
 }
 
@@ -58,7 +73,24 @@ object ExecutionStage {
   final case class JavaSourceStage(source: javadsl.Source[ExecutionStage, NotUsed])   extends ExecutionStage
   final case class FutureStage(future: Future[ExecutionStage])                        extends ExecutionStage
   final case class ListStage(stages: List[ExecutionStage])                            extends ExecutionStage
-  final case class ObjectStage(fields: List[(String, ExecutionStage)])                extends ExecutionStage
+  final case class ObjectStage(fields: List[(String, ExecutionStage)], deferred: List[Deferred] = Nil)
+      extends ExecutionStage
+
+  /**
+   * The fields of an object selected in the same `@defer` fragment, delivered after the initial payload.
+   */
+  final case class Deferred(label: Option[String], fields: List[(String, ExecutionStage)])
+
+  /**
+   * A list field marked with `@stream`: the elements after the first `initialCount` are delivered after the initial
+   * payload.
+   */
+  final case class StreamStage(stage: ExecutionStage, initialCount: Int, label: Option[String]) extends ExecutionStage
+
+  /**
+   * A field whose type has non-null positions: a failure at one of them nulls the closest nullable position above it.
+   */
+  final case class TypedStage(stage: ExecutionStage, fieldType: __Type) extends ExecutionStage
 }
 
 final case class PureStage(value: SymphonyQLOutputValue) extends Stage with ExecutionStage
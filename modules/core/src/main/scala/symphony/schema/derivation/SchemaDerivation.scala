@@ -138,14 +138,14 @@ trait SchemaDerivation extends BaseDerivation {
           def analyze(value: A): Stage =
             if (fields.isEmpty) PureStage(EnumValue(getName(annotations, info)))
             else {
-              val fieldsBuilder = Map.newBuilder[String, Stage]
+              val fieldsBuilder = Map.newBuilder[String, () => Stage]
               fields.foreach { case (label, _, schema, index) =>
                 val fieldAnnotations = paramAnnotations.getOrElse(label, Nil)
-                fieldsBuilder += getName(fieldAnnotations, label) -> schema.analyze(
-                  value.asInstanceOf[Product].productElement(index)
+                fieldsBuilder += getName(fieldAnnotations, label) -> (() =>
+                  schema.analyze(value.asInstanceOf[Product].productElement(index))
                 )
               }
-              ObjectStage(getName(annotations, info), fieldsBuilder.result())
+              ObjectStage(getName(annotations, info), fieldsBuilder.result(), Some(value))
             }
         }
     }
@@ -0,0 +1,51 @@
+package symphony.cache
+
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.Matchers
+
+class BoundedCacheSpec extends AnyFunSpec with Matchers {
+
+  describe("BoundedCache Spec") {
+    it("count hits and misses") {
+      val cache = new BoundedCache[String, Int](CacheSettings(10), (_, _) => 1L)
+      cache.get("a") shouldEqual None
+      cache.put("a", 1)
+      cache.get("a") shouldEqual Some(1)
+      cache.getOrElseUpdate("a", 2) shouldEqual 1
+      cache.stats shouldEqual CacheStats(hitCount = 2, missCount = 1, evictionCount = 0, size = 1, weight = 1)
+    }
+
+    it("evict unreferenced entries first when over size") {
+      val cache = new BoundedCache[String, Int](CacheSettings(2), (_, _) => 1L)
+      cache.put("a", 1)
+      cache.put("b", 2)
+      cache.get("a")
+      cache.put("c", 3)
+      cache.get("a") shouldEqual Some(1)
+      cache.get("b") shouldEqual None
+      cache.get("c") shouldEqual Some(3)
+      cache.stats.evictionCount shouldEqual 1
+    }
+
+    it("evict when over weight") {
+      val cache = new BoundedCache[String, String](CacheSettings(10, 10), (_, v) => v.length.toLong)
+      cache.put("a", "123456")
+      cache.put("b", "123456")
+      cache.size shouldEqual 1
+      cache.weight shouldEqual 6
+      cache.put("c", "12345678901")
+      cache.get("c") shouldEqual None
+    }
+
+    it("invalidate entries") {
+      val cache = new BoundedCache[String, Int](CacheSettings(10), (_, _) => 1L)
+      cache.put("a", 1)
+      cache.put("b", 2)
+      cache.invalidate("a")
+      cache.get("a") shouldEqual None
+      cache.invalidateAll()
+      cache.size shouldEqual 0
+      cache.weight shouldEqual 0
+    }
+  }
+}
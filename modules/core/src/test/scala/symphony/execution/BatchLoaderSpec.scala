@@ -0,0 +1,136 @@
+package symphony.execution
+
+import org.apache.pekko.NotUsed
+import org.apache.pekko.actor.ActorSystem
+import org.apache.pekko.stream.scaladsl.*
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.*
+import symphony.*
+import symphony.parser.*
+import symphony.schema.*
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+import scala.concurrent.*
+import scala.concurrent.duration.*
+import scala.jdk.CollectionConverters.*
+
+class BatchLoaderSpec extends AnyFunSpec with Matchers {
+
+  // test classes
+  final case class Author(name: String, mentor: Option[Batched[Author]])
+  final case class Book(title: String, author: Batched[Author])
+  final case class Query(books: List[Book])
+  final case class Price(symbol: String, value: Int)
+  final case class Quote(price: Batched[Price])
+  final case class Quotes(quotes: Source[Quote, NotUsed])
+
+  private val authors = Map(
+    1 -> ("Corey", Some(4)),
+    2 -> ("Daniel", Some(4)),
+    3 -> ("James", Some(5)),
+    4 -> ("Ty", Some(6)),
+    5 -> ("Wes", None)
+  )
+
+  private def library(maxBatchSize: Int, async: Boolean): (SymphonyQL, ConcurrentLinkedQueue[List[Int]]) = {
+    val calls                             = new ConcurrentLinkedQueue[List[Int]]()
+    lazy val loader: BatchLoader[Int, Author] = BatchLoader[Int, Author](maxBatchSize) { ids =>
+      calls.add(ids)
+      val loaded = ids.flatMap(id => authors.get(id).map((name, mentor) => id -> Author(name, mentor.map(loader.load))))
+      if (async) Future(loaded.toMap)(ExecutionContext.global) else Future.successful(loaded.toMap)
+    }
+    given Schema[Author]                  = Schema.derived[Author]
+    given Schema[Book]                    = Schema.derived[Book]
+    val books                             = List.tabulate(10)(i => Book(s"book-$i", loader.load(i % 3 + 1)))
+    SymphonyQL.newSymphonyQL().addQuery(Query(books), Schema.derived[Query]).build() -> calls
+  }
+
+  describe("BatchLoader Spec") {
+    it("load the keys of all list elements in one call") {
+      implicit val actorSystem: ActorSystem = ActorSystem("batchLoaderSpec")
+      val (graphql, calls)                  = library(Int.MaxValue, async = false)
+      val response                          = graphql.runSync(SymphonyQLRequest("{ books { author { name } } }"))
+      response.data.toString should include("""{"author":{"name":"Corey"}}""")
+      calls.asScala.toList shouldEqual List(List(1, 2, 3))
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("load each level of the result in one call") {
+      implicit val actorSystem: ActorSystem = ActorSystem("batchLoaderLevelSpec")
+      val (graphql, calls)                  = library(Int.MaxValue, async = true)
+      val response                          = Await.result(
+        graphql.runWith(SymphonyQLRequest("{ books { author { name mentor { name mentor { name } } } } }")),
+        Duration.Inf
+      )
+      response.data.toString should include("""{"name":"Corey","mentor":{"name":"Ty","mentor":null}}""")
+      response.data.toString should include("""{"name":"James","mentor":{"name":"Wes","mentor":null}}""")
+      calls.asScala.toList shouldEqual List(List(1, 2, 3), List(4, 5), List(6))
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("split calls by max batch size") {
+      implicit val actorSystem: ActorSystem = ActorSystem("batchLoaderSizeSpec")
+      val (graphql, calls)                  = library(2, async = true)
+      Await.result(graphql.runWith(SymphonyQLRequest("{ books { author { name } } }")), Duration.Inf)
+      calls.asScala.toList shouldEqual List(List(1, 2), List(3))
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("load the keys of a batch of requests together") {
+      implicit val actorSystem: ActorSystem = ActorSystem("batchLoaderBatchSpec")
+      val (graphql, calls)                  = library(Int.MaxValue, async = true)
+      val responses                         = Await.result(
+        graphql.runBatchWith(
+          List(
+            SymphonyQLRequest("{ books { author { name } } }"),
+            SymphonyQLRequest("{ books { title author { name mentor { name } } } }"),
+            SymphonyQLRequest("{ unknown }")
+          )
+        ),
+        Duration.Inf
+      )
+      responses.map(_.errors.size) shouldEqual List(0, 0, 1)
+      responses(1).data.toString should include("""{"name":"Corey","mentor":{"name":"Ty"}}""")
+      calls.asScala.toList shouldEqual List(List(1, 2, 3), List(4, 5))
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("cache loaded values per request") {
+      implicit val actorSystem: ActorSystem = ActorSystem("batchLoaderCacheSpec")
+      val (graphql, calls)                  = library(Int.MaxValue, async = false)
+      graphql.runSync(SymphonyQLRequest("{ books { author { name } } }"))
+      graphql.runSync(SymphonyQLRequest("{ books { author { name } } }"))
+      calls.size() shouldEqual 2
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("load the keys of each subscription event again") {
+      implicit val actorSystem: ActorSystem = ActorSystem("batchLoaderSubscriptionSpec")
+      val ticks                             = new AtomicInteger()
+      val prices                            = BatchLoader[String, Price]() { symbols =>
+        val value = ticks.incrementAndGet()
+        Future.successful(symbols.map(symbol => symbol -> Price(symbol, value)).toMap)
+      }
+      given Schema[Price]                   = Schema.derived[Price]
+      given Schema[Quote]                   = Schema.derived[Quote]
+      val graphql                           = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Query(Nil), Schema.derived[Query])
+        .addSubscription(Quotes(Source(1 to 2).map(_ => Quote(prices.load("ACME")))), Schema.derived[Quotes])
+        .build()
+      val response                          =
+        Await.result(graphql.runWith(SymphonyQLRequest("subscription { quotes { price { value } } }")), Duration.Inf)
+      val events                            = response.data match
+        case SymphonyQLOutputValue.ObjectValue(List(_ -> SymphonyQLOutputValue.StreamValue(stream))) =>
+          Await.result(stream.runWith(Sink.seq), 10.seconds)
+        case other                                                                                   =>
+          fail(other.toString)
+      events.map(_.toString) shouldEqual List(
+        """{"data":{"quotes":{"price":{"value":1}}}}""",
+        """{"data":{"quotes":{"price":{"value":2}}}}"""
+      )
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package symphony.execution
+
+import org.apache.pekko.actor.ActorSystem
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.*
+import symphony.*
+import symphony.parser.*
+import symphony.schema.*
+
+import scala.concurrent.*
+import scala.concurrent.duration.*
+
+class ExecutionPlanSpec extends AnyFunSpec with Matchers {
+
+  // test classes
+  final case class Character(name: String, nicknames: List[String])
+  final case class Query(characters: List[Character])
+
+  private def plan(query: String): SelectionPlan = {
+    val document = SymphonyQLParser.parseQuery(query, ParserBackend.RecursiveDescent).fold(fail(_), identity)
+    val plan     = new ExecutionPlan(document)
+    plan.plan(document.operationDefinitions.head)
+  }
+
+  describe("ExecutionPlan Spec") {
+    it("merge fields once per type") {
+      val root       = plan("""{
+                        |  characters { name }
+                        |  characters { ...Names ... on Other { nicknames } }
+                        |}
+                        |fragment Names on Character { alias: name nicknames }
+                        |""".stripMargin)
+      val characters = root.fields("Query").head
+      characters.responseKey shouldEqual "characters"
+      val fields     = characters.selection.fields("Character")
+      fields.map(f => f.responseKey -> f.name) shouldEqual List(
+        "name"      -> "name",
+        "alias"     -> "name",
+        "nicknames" -> "nicknames"
+      )
+      characters.selection.fields("Character") should be theSameInstanceAs fields
+    }
+
+    it("execute aliases and __typename") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executionPlanSpec")
+      val graphql                           = SymphonyQL
+        .newSymphonyQL()
+        .rootResolver(
+          SymphonyQLResolver(
+            Query(List(Character("Naomi", Nil), Character("Amos", List("Tim")))) -> Schema.derived[Query]
+          )
+        )
+        .build()
+      val response                          = Await.result(
+        graphql.runWith(SymphonyQLRequest("{ characters { __typename first: name name } }")),
+        Duration.Inf
+      )
+      response.data.toString shouldEqual
+        """{"characters":[{"__typename":"Character","first":"Naomi","name":"Naomi"},{"__typename":"Character","first":"Amos","name":"Amos"}]}"""
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+  }
+}
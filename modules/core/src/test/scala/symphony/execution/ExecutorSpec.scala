@@ -0,0 +1,615 @@
+package symphony.execution
+
+import org.apache.pekko.{ Done, NotUsed }
+import org.apache.pekko.actor.ActorSystem
+import org.apache.pekko.stream.BufferOverflowException
+import org.apache.pekko.stream.scaladsl.*
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.*
+import symphony.*
+import symphony.cache.*
+import symphony.parser.*
+import symphony.parser.SymphonyQLError.ArgumentError
+import symphony.parser.SymphonyQLPathValue.*
+import symphony.schema.*
+import symphony.schema.builder.ObjectBuilder
+
+import java.nio.charset.StandardCharsets.UTF_8
+import java.security.MessageDigest
+import java.util.HexFormat
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+import scala.concurrent.*
+import scala.concurrent.duration.*
+import scala.jdk.CollectionConverters.*
+
+class ExecutorSpec extends AnyFunSpec with Matchers {
+
+  // test classes
+  final case class Friend(name: String)
+  final case class Character(name: String, friends: () => Future[List[Friend]])
+  final case class Query(characters: Future[List[Character]], version: String, crew: List[Friend])
+  final case class Ship(name: String, pilot: Friend, crew: List[Friend])
+  final case class Member(name: String, rank: () => String)
+  final case class Crew(members: List[Member])
+  final case class Task(duration: () => Future[Int])
+  final case class Tasks(tasks: List[Task])
+  final case class Probe(id: Int)
+  final case class Probes(probes: List[Probe])
+  final case class Station(name: String, status: () => Future[Option[String]])
+  final case class Stations(stations: List[Station])
+  final case class Sensor(
+    name: String,
+    reading: () => Future[Option[Int]],
+    calibration: () => Future[Int],
+    events: Source[String, NotUsed]
+  )
+  final case class Sensors(sensors: List[Sensor], backup: Option[Sensor])
+  final case class Dashboard(title: String, summary: () => Future[String], items: List[String])
+  final case class Subscription(names: Source[String, NotUsed])
+  final case class Ticker(ticks: Source[String, NotUsed])
+  final case class Feed(numbers: Source[Int, NotUsed])
+  final case class Counter(increment: () => Int)
+  final case class Alert(level: () => Future[Option[String]])
+  final case class Alerts(alerts: Source[Alert, NotUsed])
+
+  private val amos  = Character("Amos", () => Future.successful(Nil))
+  private val naomi = Character("Naomi", () => Future(List(Friend("Amos")))(ExecutionContext.global))
+
+  private val graphql = SymphonyQL
+    .newSymphonyQL()
+    .addQuery(
+      Query(Future(List(naomi, amos))(ExecutionContext.global), "1.0", List(Friend("Alex"))),
+      Schema.derived[Query]
+    )
+    .addSubscription(Subscription(Source(List("Amos", "Naomi"))), Schema.derived[Subscription])
+    .build()
+
+  describe("Executor Spec") {
+    it("assemble nested futures in order") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorSpec")
+      val response                          = Await.result(
+        graphql.runWith(SymphonyQLRequest("{ characters { name friends { name } } }")),
+        Duration.Inf
+      )
+      response.data.toString shouldEqual
+        """{"characters":[{"name":"Naomi","friends":[{"name":"Amos"}]},{"name":"Amos","friends":[]}]}"""
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("answer synchronous requests on the calling thread") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorSyncSpec")
+      graphql.runWith(SymphonyQLRequest("{ version crew { name } }")).isCompleted shouldBe true
+      graphql.runSync(SymphonyQLRequest("{ version }")).data.toString shouldEqual """{"version":"1.0"}"""
+      graphql.runSync(SymphonyQLRequest("{ characters { name } }")).data.toString shouldEqual
+        """{"characters":[{"name":"Naomi"},{"name":"Amos"}]}"""
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("only analyze selected fields") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorLazySpec")
+      val analyzed                          = new AtomicInteger()
+      given Schema[Friend]                  = Schema.derived[Friend].contramap { friend =>
+        analyzed.incrementAndGet()
+        friend
+      }
+      val lazyGraphql                       = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Ship("Rocinante", Friend("Alex"), List(Friend("Amos"), Friend("Naomi"))), Schema.derived[Ship])
+        .build()
+      lazyGraphql.runSync(SymphonyQLRequest("{ name }")).data.toString shouldEqual """{"name":"Rocinante"}"""
+      analyzed.get() shouldEqual 0
+      lazyGraphql.runSync(SymphonyQLRequest("{ pilot { name } }"))
+      analyzed.get() shouldEqual 1
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("memoize resolvers per request") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorMemoizationSpec")
+      val calls                             = new AtomicInteger()
+      val amos                              = Member("Amos", () => s"Mechanic ${calls.incrementAndGet()}")
+      val crew                              = Crew(List(amos, Member("Naomi", () => "Engineer"), amos))
+      val memoized                          = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(crew, Schema.derived[Crew])
+        .resolverMemoization(CacheSettings(16))
+        .build()
+      memoized.runSync(SymphonyQLRequest("{ members { rank } }")).data.toString shouldEqual
+        """{"members":[{"rank":"Mechanic 1"},{"rank":"Engineer"},{"rank":"Mechanic 1"}]}"""
+      memoized.runSync(SymphonyQLRequest("{ members { rank } }"))
+      calls.get() shouldEqual 2
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("call every resolver of a mutation, even with memoization") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorMutationMemoizationSpec")
+      val count                             = new AtomicInteger()
+      val counter                           = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Query(Future.successful(Nil), "1.0", Nil), Schema.derived[Query])
+        .addMutation(Counter(() => count.incrementAndGet()), Schema.derived[Counter])
+        .resolverMemoization(CacheSettings(16))
+        .build()
+      counter.runSync(SymphonyQLRequest("mutation { a: increment b: increment }")).data.toString shouldEqual
+        """{"a":1,"b":2}"""
+      count.get() shouldEqual 2
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("call the resolvers of every mutation of a batch, even with memoization") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorBatchMutationSpec")
+      val count                             = new AtomicInteger()
+      val counter                           = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Query(Future.successful(Nil), "1.0", Nil), Schema.derived[Query])
+        .addMutation(Counter(() => count.incrementAndGet()), Schema.derived[Counter])
+        .resolverMemoization(CacheSettings(16))
+        .build()
+      val responses                         = Await.result(
+        counter.runBatchWith(List.fill(2)(SymphonyQLRequest("mutation { increment }"))),
+        Duration.Inf
+      )
+      responses.map(_.data.toString).sorted shouldEqual List("""{"increment":1}""", """{"increment":2}""")
+      count.get() shouldEqual 2
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("limit the futures in flight per request") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorLimiterSpec")
+      val running                           = new AtomicInteger()
+      val peak                              = new AtomicInteger()
+      val task                              = Task { () =>
+        Future {
+          peak.accumulateAndGet(running.incrementAndGet(), math.max)
+          Thread.sleep(5)
+          running.decrementAndGet()
+          5
+        }(ExecutionContext.global)
+      }
+      val limited                           = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Tasks(List.fill(20)(task)), Schema.derived[Tasks])
+        .planningExecutionContext(ExecutionContext.global)
+        .maxFuturesInFlight(2)
+        .build()
+      val response                          =
+        Await.result(limited.runWith(SymphonyQLRequest("{ tasks { duration } }")), Duration.Inf)
+      response.data.toString shouldEqual List.fill(20)("""{"duration":5}""").mkString("""{"tasks":[""", ",", "]}")
+      peak.get() should be <= 2
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("run java resolvers on virtual threads") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorVirtualThreadSpec")
+      given Schema[Probe]                   = ObjectBuilder
+        .newObject[Probe]()
+        .name("Probe")
+        .field[java.util.function.Supplier[Boolean]](
+          _.name("virtual").schema(Schema.createFunctionUnit(Schema.BooleanSchema)).build(),
+          _ => () => Thread.currentThread().isVirtual
+        )
+        .build()
+      def run(virtual: Boolean)             = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Probes(List(Probe(1), Probe(2))), Schema.derived[Probes])
+        .javaResolversOnVirtualThreads(virtual)
+        .build()
+        .runSync(SymphonyQLRequest("{ probes { virtual } }"))
+        .data
+        .toString
+      run(virtual = true) shouldEqual """{"probes":[{"virtual":true},{"virtual":true}]}"""
+      run(virtual = false) shouldEqual """{"probes":[{"virtual":false},{"virtual":false}]}"""
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("answer with partial data once the request times out") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorTimeoutSpec")
+      val stations                          = Stations(
+        List(Station("Tycho", () => Future.successful(Some("docked"))), Station("Ceres", () => Promise().future))
+      )
+      val bounded                           = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(stations, Schema.derived[Stations])
+        .requestTimeout(100.millis)
+        .build()
+      val response                          =
+        Await.result(bounded.runWith(SymphonyQLRequest("{ stations { name status } }")), Duration.Inf)
+      response.data.toString shouldEqual
+        """{"stations":[{"name":"Tycho","status":"docked"},{"name":"Ceres","status":null}]}"""
+      val paths                             =
+        response.errors.collect { case SymphonyQLError.ExecutionError(_, path, _, _, _) => path }
+      paths shouldEqual List(List(Key("stations"), Index(1), Key("status")))
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("call no further resolver once the request times out") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorTimeoutResolverSpec")
+      val calls                             = new AtomicInteger()
+      // each status is answered after the deadline, while the next one waits for its slot
+      val status                            = () => {
+        calls.incrementAndGet()
+        val promise = Promise[Option[String]]()
+        actorSystem.scheduler.scheduleOnce(300.millis)(promise.success(Some("docked")))(actorSystem.dispatcher)
+        promise.future
+      }
+      val bounded                           = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Stations(List.tabulate(4)(i => Station(s"station-$i", status))), Schema.derived[Stations])
+        .maxFuturesInFlight(1)
+        .requestTimeout(100.millis)
+        .build()
+      val response                          =
+        Await.result(bounded.runWith(SymphonyQLRequest("{ stations { status } }")), Duration.Inf)
+      response.data.toString shouldEqual
+        """{"stations":[{"status":null},{"status":null},{"status":null},{"status":null}]}"""
+      response.errors.size shouldEqual 4
+      Thread.sleep(500)
+      calls.get() shouldEqual 1
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("resolve failed fields to null with an error at their path") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorFieldErrorSpec")
+      val failed                            = (msg: String) => Future.failed(new IllegalStateException(msg))
+      val sensors                           = Sensors(
+        List(
+          Sensor("Alpha", () => Future.successful(Some(1)), () => Future.successful(1), Source.single("on")),
+          Sensor("Beta", () => failed("offline"), () => Future.successful(1), Source.failed(ArgumentError("no events")))
+        ),
+        Some(Sensor("Gamma", () => Future.successful(None), () => failed("uncalibrated"), Source.empty))
+      )
+      val isolated                          = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(sensors, Schema.derived[Sensors])
+        .build()
+      val response                          = Await.result(
+        isolated.runWith(SymphonyQLRequest("{ sensors { name reading events } backup { name calibration } }")),
+        Duration.Inf
+      )
+      response.data.toString shouldEqual
+        """{"sensors":[{"name":"Alpha","reading":1,"events":["on"]},{"name":"Beta","reading":null,"events":null}],""" +
+        """"backup":null}"""
+      val errors                            =
+        response.errors.collect { case SymphonyQLError.ExecutionError(msg, path, _, _, _) => msg -> path }
+      errors.toSet shouldEqual Set(
+        "offline"      -> List(Key("sensors"), Index(1), Key("reading")),
+        "no events"    -> List(Key("sensors"), Index(1), Key("events")),
+        "uncalibrated" -> List(Key("backup"), Key("calibration"))
+      )
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("deliver deferred fragments and streamed elements incrementally") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorIncrementalSpec")
+      val summary                           = () =>
+        Future {
+          Thread.sleep(50)
+          "all green"
+        }(ExecutionContext.global)
+      val incremental                       = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Dashboard("Ops", summary, List("a", "b", "c")), Schema.derived[Dashboard])
+        .build()
+      val results                           = Await.result(
+        incremental
+          .runIncrementalWith(
+            SymphonyQLRequest("""{ title ... @defer(label: "summary") { summary } items @stream(initialCount: 1) }""")
+          )
+          .runWith(Sink.seq),
+        Duration.Inf
+      )
+      results.head.toOutputValue.toString shouldEqual """{"data":{"title":"Ops","items":["a"]},"hasNext":true}"""
+      results.last.hasNext shouldBe false
+      val payloads                          = results.collect {
+        case SymphonyQLIncrementalResult.Subsequent(payloads, _) => payloads.map(_.toOutputValue.toString)
+      }.flatten
+      payloads should contain theSameElementsAs List(
+        """{"data":{"summary":"all green"},"path":[],"label":"summary"}""",
+        """{"items":["b"],"path":["items",1]}""",
+        """{"items":["c"],"path":["items",2]}"""
+      )
+      // without incremental delivery, the directives are ignored
+      graphql.runSync(SymphonyQLRequest("{ characters @stream(initialCount: 0) { name } }")).data.toString shouldEqual
+        """{"characters":[{"name":"Naomi"},{"name":"Amos"}]}"""
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("pull streamed elements at the pace of the consumer") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorIncrementalBackpressureSpec")
+      val pulled                            = new AtomicInteger()
+      val stopped                           = Promise[Done]()
+      val numbers                           = Source
+        .fromIterator(() => Iterator.from(1))
+        .map { i =>
+          pulled.incrementAndGet()
+          i
+        }
+        .watchTermination() { (_, done) =>
+          stopped.completeWith(done)
+          NotUsed
+        }
+      val incremental                       = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Feed(numbers), Schema.derived[Feed])
+        .build()
+      val results                           = incremental
+        .runIncrementalWith(SymphonyQLRequest("{ numbers @stream(initialCount: 1) }"))
+        .runWith(Sink.queue())
+      Await.result(results.pull(), 10.seconds).map(_.hasNext) shouldEqual Some(true)
+      Await.result(results.pull(), 10.seconds).map(_.hasNext) shouldEqual Some(true)
+
+      // the infinite stream is held back by the buffers, until the results are cancelled
+      Thread.sleep(200)
+      val held = pulled.get()
+      Thread.sleep(200)
+      pulled.get() shouldEqual held
+      results.cancel()
+      Await.result(stopped.future, 10.seconds) shouldEqual Done
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("run automatic persisted queries by hash") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorPersistedQuerySpec")
+      val store                             = PersistedQueryStore.inMemory(CacheSettings(10))
+      val persisted                         = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Query(Future.successful(Nil), "1.0", Nil), Schema.derived[Query])
+        .persistedQueries(store)
+        .build()
+      val query                             = "{ version }"
+      val hash                              = sha256(query)
+
+      def sha256(query: String): String =
+        HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(query.getBytes(UTF_8)))
+      def request(query: String, sha256Hash: String = hash) = SymphonyQLRequest(
+        query,
+        extensions = Some(
+          Map(
+            "persistedQuery" -> SymphonyQLInputValue.ObjectValue(
+              Map("version" -> SymphonyQLValue.IntValue(1), "sha256Hash" -> SymphonyQLValue.StringValue(sha256Hash))
+            )
+          )
+        )
+      )
+
+      persisted.runSync(request("")).toOutputValue.toString shouldEqual
+        """{"errors":[{"message":"PersistedQueryNotFound","extensions":{"code":"PERSISTED_QUERY_NOT_FOUND"}}]}"""
+      persisted.runSync(request(query)).data.toString shouldEqual """{"version":"1.0"}"""
+      persisted.runSync(request("")).data.toString shouldEqual """{"version":"1.0"}"""
+      store.stats.hitCount shouldEqual 1
+      // hashes are hexadecimal, whatever the case of their digits
+      persisted.runSync(request("", hash.toUpperCase)).data.toString shouldEqual """{"version":"1.0"}"""
+      persisted.runSync(request("{ crew { name } }")).toOutputValue.toString shouldEqual
+        """{"errors":[{"message":"provided sha does not match query","extensions":{"code":"BAD_REQUEST"}}]}"""
+      // invalid queries are not registered
+      persisted.runSync(request("{ unknown }", sha256("{ unknown }"))).errors should not be empty
+      persisted.runSync(request("", sha256("{ unknown }"))).toOutputValue.toString shouldEqual
+        """{"errors":[{"message":"PersistedQueryNotFound","extensions":{"code":"PERSISTED_QUERY_NOT_FOUND"}}]}"""
+      graphql.runSync(request("")).toOutputValue.toString shouldEqual
+        """{"errors":[{"message":"PersistedQueryNotSupported","extensions":{"code":"PERSISTED_QUERY_NOT_SUPPORTED"}}]}"""
+      graphql.runSync(request(query)).data.toString shouldEqual """{"version":"1.0"}"""
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("run trusted operations by id") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorTrustedOperationSpec")
+
+      def trusted(operations: Map[String, String]) = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Query(Future.successful(Nil), "1.0", List(Friend("Alex"))), Schema.derived[Query])
+        .trustedOperations(operations, strict = true)
+        .build()
+
+      val strict = trusted(Map("version" -> "{ version }"))
+
+      strict.runSync(SymphonyQLRequest("", operationId = Some("version"))).data.toString shouldEqual
+        """{"version":"1.0"}"""
+      strict.runSync(SymphonyQLRequest("{ version }")).data.toString shouldEqual """{"version":"1.0"}"""
+      strict.runSync(SymphonyQLRequest("", operationId = Some("crew"))).toOutputValue.toString shouldEqual
+        """{"errors":[{"message":"Unknown operation id crew","extensions":{"code":"OPERATION_NOT_FOUND"}}]}"""
+      strict.runSync(SymphonyQLRequest("{ crew { name } }")).toOutputValue.toString shouldEqual
+        """{"errors":[{"message":"Only trusted operations are accepted","extensions":{"code":"OPERATION_NOT_TRUSTED"}}]}"""
+      an[IllegalArgumentException] should be thrownBy trusted(Map("unknown" -> "{ unknown }"))
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("stream subscription fields") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorSubscriptionSpec")
+      val response                          =
+        Await.result(graphql.runWith(SymphonyQLRequest("subscription { names }")), Duration.Inf)
+      val names                             = response.data match
+        case SymphonyQLOutputValue.ObjectValue(List("names" -> SymphonyQLOutputValue.StreamValue(stream))) =>
+          Await.result(stream.runWith(Sink.seq), Duration.Inf)
+        case other                                                                                         => fail(other.toString)
+      names.map(_.toString) shouldEqual
+        List("""{"data":{"names":"Amos"}}""", """{"data":{"names":"Naomi"}}""")
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("send the errors of each subscription event along with it") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorSubscriptionErrorSpec")
+      val low                               = Alert(() => Future.successful(Some("low")))
+      val lost                              = Alert(() => Future.failed(new IllegalStateException("lost")))
+      val none                              = Alert(() => Future.successful(None))
+      val alerts                            = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Query(Future.successful(Nil), "1.0", Nil), Schema.derived[Query])
+        .addSubscription(Alerts(Source(List(low, lost, none))), Schema.derived[Alerts])
+        .build()
+      val response                          =
+        Await.result(alerts.runWith(SymphonyQLRequest("subscription { alerts { level } }")), Duration.Inf)
+      response.errors shouldBe empty
+      val events                            = response.data match
+        case SymphonyQLOutputValue.ObjectValue(List(_ -> SymphonyQLOutputValue.StreamValue(stream))) =>
+          Await.result(stream.runWith(Sink.seq), Duration.Inf)
+        case other                                                                                   =>
+          fail(other.toString)
+      events.map(_.toString) shouldEqual List(
+        """{"data":{"alerts":{"level":"low"}}}""",
+        """{"data":{"alerts":{"level":null}},"errors":[{"message":"lost","path":["alerts","level"]}]}""",
+        """{"data":{"alerts":{"level":null}}}"""
+      )
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("share the source of identical subscriptions") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorSharedSubscriptionSpec")
+      val started                           = new AtomicInteger()
+      val ticks                             = Source
+        .fromMaterializer { (_, _) =>
+          started.incrementAndGet()
+          Source.repeat("tick")
+        }
+        .mapMaterializedValue(_ => NotUsed)
+      val shared                            = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Query(Future.successful(Nil), "1.0", Nil), Schema.derived[Query])
+        .addSubscription(Ticker(ticks), Schema.derived[Ticker])
+        .sharedSubscriptions(16)
+        .build()
+
+      def subscribe(query: String): SinkQueueWithCancel[SymphonyQLOutputValue] =
+        Await.result(shared.runWith(SymphonyQLRequest(query)), Duration.Inf).data match
+          case SymphonyQLOutputValue.ObjectValue(List(_ -> SymphonyQLOutputValue.StreamValue(stream))) =>
+            stream.runWith(Sink.queue())
+          case other                                                                                   =>
+            fail(other.toString)
+      def next(subscriber: SinkQueueWithCancel[SymphonyQLOutputValue]): Option[String] =
+        Await.result(subscriber.pull(), 10.seconds).map(_.toString)
+
+      val subscribers = List.fill(10)(subscribe("subscription { ticks }"))
+      subscribers.foreach(next(_) shouldEqual Some("""{"data":{"ticks":"tick"}}"""))
+      started.get() shouldEqual 1
+
+      // events are executed into the response sent for them, which holds the alias of the field
+      val other = subscribe("subscription { other: ticks }")
+      next(other) shouldEqual Some("""{"data":{"other":"tick"}}""")
+      started.get() shouldEqual 2
+
+      // the source is stopped with its last subscriber, and started again by the next one
+      (other :: subscribers).foreach(_.cancel())
+      Thread.sleep(1000)
+      val subscriber = subscribe("subscription { ticks }")
+      next(subscriber) shouldEqual Some("""{"data":{"ticks":"tick"}}""")
+      started.get() shouldEqual 3
+      subscriber.cancel()
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("execute each shared event once for all of its subscribers") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorSharedEventSpec")
+      val calls                             = new ConcurrentLinkedQueue[Int]()
+      val alerts                            = Source
+        .fromIterator(() => Iterator.from(1))
+        .map(i =>
+          Alert { () =>
+            calls.add(i)
+            Future.successful(Some(s"level-$i"))
+          }
+        )
+      val shared                            = SymphonyQL
+        .newSymphonyQL()
+        .addQuery(Query(Future.successful(Nil), "1.0", Nil), Schema.derived[Query])
+        .addSubscription(Alerts(alerts), Schema.derived[Alerts])
+        .sharedSubscriptions(16)
+        .build()
+
+      val subscribers = List.fill(10) {
+        Await.result(shared.runWith(SymphonyQLRequest("subscription { alerts { level } }")), Duration.Inf).data match
+          case SymphonyQLOutputValue.ObjectValue(List(_ -> SymphonyQLOutputValue.StreamValue(stream))) =>
+            stream.runWith(Sink.queue())
+          case other                                                                                   =>
+            fail(other.toString)
+      }
+      subscribers.foreach { subscriber =>
+        List.fill(5)(Await.result(subscriber.pull(), 10.seconds).get.toString should include("level-"))
+      }
+      subscribers.foreach(_.cancel())
+
+      // the nested resolver of an event is called once, however many subscribers receive it
+      calls.size() should be > 0
+      calls.asScala.toList.distinct.size shouldEqual calls.size()
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("apply backpressure policies to slow subscribers") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorBackpressureSpec")
+
+      def receive(backpressure: SubscriptionBackpressure): Future[Seq[String]] = {
+        val feed = SymphonyQL
+          .newSymphonyQL()
+          .addQuery(Query(Future.successful(Nil), "1.0", Nil), Schema.derived[Query])
+          .addSubscription(Feed(Source(1 to 1000)), Schema.derived[Feed])
+          .subscriptionBackpressure("numbers", backpressure)
+          .build()
+        feed
+          .runWith(SymphonyQLRequest("subscription { numbers }"))
+          .flatMap(_.data match
+            case SymphonyQLOutputValue.ObjectValue(List(_ -> SymphonyQLOutputValue.StreamValue(stream))) =>
+              // far slower than the source, which would otherwise be held back
+              stream.throttle(1, 20.millis).map(_.toString).runWith(Sink.seq)
+            case other                                                                                   =>
+              Future.failed(new IllegalStateException(other.toString))
+          )(actorSystem.dispatcher)
+      }
+
+      val dropNew = Await.result(receive(SubscriptionBackpressure.dropNew(4)), 10.seconds)
+      dropNew.head shouldEqual """{"data":{"numbers":1}}"""
+      dropNew.size should be < 100
+
+      val dropHead = Await.result(receive(SubscriptionBackpressure.dropHead(4)), 10.seconds)
+      dropHead.last shouldEqual """{"data":{"numbers":1000}}"""
+      dropHead.size should be < 100
+
+      val conflate = Await.result(receive(SubscriptionBackpressure.conflate), 10.seconds)
+      conflate.last shouldEqual """{"data":{"numbers":1000}}"""
+      conflate.size should be < 100
+
+      val throttle = Await.result(receive(SubscriptionBackpressure.throttle(1, 50.millis)), 10.seconds)
+      throttle.last shouldEqual """{"data":{"numbers":1000}}"""
+      throttle.size should be < 100
+
+      an[BufferOverflowException] should be thrownBy
+        Await.result(receive(SubscriptionBackpressure.fail(4)), 10.seconds)
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("keep slow subscribers from holding back the others of a shared source") {
+      implicit val actorSystem: ActorSystem = ActorSystem("executorSharedBackpressureSpec")
+
+      def receive(backpressure: SubscriptionBackpressure): Seq[String] = {
+        // the source starts once both subscribers are attached, so that they are sent the same events
+        val attached = Promise[Done]()
+        val feed     = SymphonyQL
+          .newSymphonyQL()
+          .addQuery(Query(Future.successful(Nil), "1.0", Nil), Schema.derived[Query])
+          .addSubscription(
+            Feed(Source.future(attached.future).flatMapConcat(_ => Source(1 to 1000))),
+            Schema.derived[Feed]
+          )
+          .subscriptionBackpressure("numbers", backpressure)
+          .sharedSubscriptions(16)
+          .build()
+
+        def subscribe(): Source[SymphonyQLOutputValue, NotUsed] =
+          Await.result(feed.runWith(SymphonyQLRequest("subscription { numbers }")), Duration.Inf).data match
+            case SymphonyQLOutputValue.ObjectValue(List(_ -> SymphonyQLOutputValue.StreamValue(stream))) => stream
+            case other                                                                                   =>
+              fail(other.toString)
+
+        // never pulled
+        val stalled  = subscribe().runWith(Sink.queue())
+        val received = subscribe().map(_.toString).runWith(Sink.seq)
+        Thread.sleep(500)
+        attached.success(Done)
+        val events   = Await.result(received, 10.seconds)
+        stalled.cancel()
+        events
+      }
+
+      // far more events than the buffers of the stalled subscriber hold
+      receive(SubscriptionBackpressure.dropHead(64)) shouldEqual (1 to 1000).map(i => s"""{"data":{"numbers":$i}}""")
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+  }
+}
@@ -90,6 +90,7 @@ class AutoGenSpec extends AnyFunSpec with Matchers {
         .fields
         .get("getUsers")
         .head
+        .apply()
         .asInstanceOf[Stage.FunctionStage]
         .stage
         .apply(Map("id" -> SymphonyQLValue.StringValue("")))
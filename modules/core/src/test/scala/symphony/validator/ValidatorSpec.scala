@@ -0,0 +1,160 @@
+package symphony.validator
+
+import org.apache.pekko.actor.ActorSystem
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.*
+import symphony.*
+import symphony.cache.CacheSettings
+import symphony.parser.*
+import symphony.schema.*
+
+import scala.concurrent.*
+import scala.concurrent.duration.*
+
+class ValidatorSpec extends AnyFunSpec with Matchers {
+
+  // test classes
+  sealed trait Origin
+  object Origin {
+    case object EARTH extends Origin
+    case object MARS  extends Origin
+  }
+  final case class Character(name: String, origin: Origin, nicknames: List[String])
+  final case class CharacterArgs(name: String)
+  final case class FilterArgs(origin: Option[Origin])
+  final case class Query(
+    character: CharacterArgs => Option[Character],
+    characters: FilterArgs => List[Character]
+  )
+
+  private val resolver = Query(
+    args => Some(Character(args.name, Origin.EARTH, Nil)),
+    _ => List(Character("Amos", Origin.EARTH, List("Tim")))
+  )
+  private val graphql  = SymphonyQL
+    .newSymphonyQL()
+    .rootResolver(SymphonyQLResolver(resolver -> Schema.derived[Query]))
+    .build()
+
+  private val schema = {
+    val queryType = Schema.derived[Query].lazyType()
+    val rootType  = RootType(queryType, None, None)
+    new ValidationSchema(queryType, None, None, rootType.types, Introspector.directives)
+  }
+
+  private def errors(query: String): List[String] =
+    SymphonyQLParser.parseQuery(query, ParserBackend.RecursiveDescent) match
+      case Left(error)     => fail(error)
+      case Right(document) => Validator.validate(document, schema).map(_.msg)
+
+  describe("Validator Spec") {
+    it("accept valid documents") {
+      errors("""query Characters($origin: Origin, $withNames: Boolean!) {
+               |  characters(origin: $origin) { ...CharacterFields }
+               |  character(name: "Amos") { __typename name @include(if: $withNames) }
+               |}
+               |fragment CharacterFields on Character { name origin ... on Character { nicknames } }
+               |""".stripMargin) shouldEqual Nil
+      errors("{ characters(origin: MARS) { alias: name } }") shouldEqual Nil
+    }
+
+    it("reject unknown fields and invalid selections") {
+      errors("{ characters { age } }") shouldEqual List("Field 'age' does not exist on type 'Character'.")
+      errors("{ characters }") shouldEqual List(
+        "Field 'characters' of type '[Character!]!' must have a selection of subfields."
+      )
+      errors("{ characters { name { first } } }") shouldEqual List(
+        "Field 'name' of type 'String!' is a leaf and must not have a selection set."
+      )
+      errors("{ characters { name: origin name } }").head should startWith("Fields with response name 'name'")
+    }
+
+    it("reject invalid arguments and values") {
+      errors("{ character { name } }") shouldEqual List(
+        "Required argument 'name' is null or missing on field 'character' of type 'Query'."
+      )
+      errors("""{ character(name: "Amos", age: 30) { name } }""") shouldEqual List(
+        "Argument 'age' is not defined on field 'character' of type 'Query'."
+      )
+      errors("{ character(name: 1) { name } }") shouldEqual List("Value '1' is not valid for type 'String'.")
+      errors("{ characters(origin: VENUS) { name } }") shouldEqual List("Value 'VENUS' is not valid for type 'Origin'.")
+    }
+
+    it("reject invalid fragments") {
+      errors("{ characters { ...Missing } }") shouldEqual List("Fragment spread 'Missing' is not defined.")
+      errors("{ characters { name } } fragment Unused on Character { name }") shouldEqual List(
+        "Fragment 'Unused' is never used."
+      )
+      errors("{ characters { ...A } } fragment A on Character { ...B } fragment B on Character { ...A }") shouldEqual
+        List("Fragment 'A' forms a cycle.")
+      errors("{ characters { ... on Query { __typename } } }") shouldEqual List(
+        "Inline fragment on type 'Query' can never be applied to type 'Character'."
+      )
+    }
+
+    it("reject invalid variables") {
+      errors("query { character(name: $name) { name } }") shouldEqual List("Variable 'name' is not defined.")
+      errors("query Q($name: String!) { characters { name } }") shouldEqual List(
+        "Variable 'name' is not used in operation 'Q'."
+      )
+      errors("query Q($name: String) { character(name: $name) { name } }") shouldEqual List(
+        "Variable 'name' of type 'String' used in position expecting type 'String!' in operation 'Q'."
+      )
+      errors("query Q($c: Character) { character(name: $c) { name } }") should contain(
+        "Type of variable 'c' is not a valid input type: 'Character'."
+      )
+    }
+
+    it("check variables used through fragments") {
+      errors("""query Q($name: String!) { ...Root }
+               |fragment Root on Query { character(name: $name) { name } }
+               |""".stripMargin) shouldEqual Nil
+    }
+
+    it("reject invalid directives") {
+      errors("{ characters @unknown { name } }") shouldEqual List("Directive 'unknown' is not supported.")
+      errors("query @skip(if: true) { characters { name } }") shouldEqual List(
+        "Directive 'skip' is used in invalid location 'QUERY'."
+      )
+      errors("{ characters { name @skip } }") shouldEqual List(
+        "Required argument 'if' is null or missing on directive 'skip'."
+      )
+    }
+
+    it("reject invalid operations") {
+      errors("{ characters { name } } query Q { characters { name } }") shouldEqual List(
+        "An anonymous operation must be the only defined operation."
+      )
+      errors("mutation { characters { name } }") shouldEqual List(
+        "Mutation operations are not supported on this schema."
+      )
+    }
+
+    it("reject invalid documents before execution") {
+      implicit val actorSystem: ActorSystem = ActorSystem("validatorSpec")
+      val response                          =
+        Await.result(graphql.runWith(SymphonyQLRequest("{ characters { age } }")), Duration.Inf)
+      response.data shouldEqual SymphonyQLValue.NullValue
+      response.errors.map(_.getMessage) shouldEqual List("Field 'age' does not exist on type 'Character'.")
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("cache validation results") {
+      implicit val actorSystem: ActorSystem = ActorSystem("validatorCacheSpec")
+      val cached                            = SymphonyQL
+        .newSymphonyQL()
+        .rootResolver(SymphonyQLResolver(resolver -> Schema.derived[Query]))
+        .validationCache(CacheSettings.default)
+        .build()
+      def run(query: String)                =
+        Await.result(cached.runWith(SymphonyQLRequest(query)), Duration.Inf)
+
+      run("{ characters { age } }").errors should have size 1
+      run("{ characters {  age  } }").errors should have size 1
+      run("{ characters { name } }").errors shouldBe empty
+      run("{ __type(name: \"Character\") { name } }").errors shouldBe empty
+      cached.validationCacheStats.map(s => (s.hitCount, s.missCount, s.size)) shouldEqual Some((1L, 3L, 3))
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+  }
+}
@@ -43,7 +43,8 @@ public final class Constant {
           "java.util.List",
           "java.util.Vector",
           "java.util.Set",
-          "java.util.concurrent.CompletionStage");
+          "java.util.concurrent.CompletionStage",
+          "symphony.schema.Batched");
 
   public static final List<String> scalarList =
       List.of("java.lang.String", "java.math.BigInteger", "java.math.BigDecimal");
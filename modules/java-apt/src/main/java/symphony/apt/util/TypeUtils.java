@@ -328,6 +328,10 @@ public final class TypeUtils {
                     args.add(wrappedContext.usedClassName);
                     sb.append("$T.createCompletionStage(");
                     break;
+                case "symphony.schema.Batched":
+                    args.add(wrappedContext.usedClassName);
+                    sb.append("$T.createBatched(");
+                    break;
                 case "java.util.function.Function":
                     args.add(wrappedContext.usedClassName);
                     sb.append("$T.createFunction(");
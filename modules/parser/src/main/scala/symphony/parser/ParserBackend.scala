@@ -0,0 +1,16 @@
+package symphony.parser
+
+sealed trait ParserBackend extends Serializable
+
+object ParserBackend {
+
+  /**
+   * The parboiled2 rules in [[symphony.parser.parsers.DefinitionParser]].
+   */
+  case object Parboiled extends ParserBackend
+
+  /**
+   * The hand-written [[symphony.parser.parsers.RecursiveDescentParser]].
+   */
+  case object RecursiveDescent extends ParserBackend
+}
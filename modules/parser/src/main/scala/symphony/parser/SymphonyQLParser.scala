@@ -27,6 +27,13 @@ object SymphonyQLParser {
       case Success(value)                  => Right(Document(value.definitions, SourceMapper(query)))
   }
 
+  def parseQuery(query: String, backend: ParserBackend): Either[ParsingError, Document] =
+    backend match
+      case ParserBackend.Parboiled        => parseQuery(query)
+      case ParserBackend.RecursiveDescent =>
+        try Right(Document(new RecursiveDescentParser(query).document().definitions, SourceMapper(query)))
+        catch case error: ParsingError => Left(error)
+
   def check(query: String): Option[String] = {
     val input  = ParserInput(query)
     val parser = SymphonyQLParser.documentParser(input)
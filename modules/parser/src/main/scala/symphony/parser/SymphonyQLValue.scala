@@ -19,6 +19,33 @@ object SymphonyQLOutputValue {
     override def toString: String = "<stream>"
   }
 
+  /**
+   * One event of a subscription, executed on its own: `response` is the response sent for it, with the data of the
+   * subscription field and the errors of the fields that failed for this event.
+   *
+   * Subscribers of a shared source all receive the same value for an event, which keeps the rendering of its response
+   * so that it is rendered once for all of them, see [[renderedWith]].
+   */
+  final case class EventValue(response: SymphonyQLOutputValue) extends SymphonyQLOutputValue {
+    override def toString: String = response.toString
+
+    // the latest rendering of the response, along with its renderer
+    @transient @volatile private var rendered: (AnyRef, Any) = null
+
+    /**
+     * Renders the response with `render`, only calling it once as long as the same renderer is passed.
+     */
+    def renderedWith[A](render: SymphonyQLOutputValue => A): A = {
+      val cached = rendered
+      if (cached != null && (cached._1 eq render)) cached._2.asInstanceOf[A]
+      else {
+        val fresh = render(response)
+        rendered = (render, fresh)
+        fresh
+      }
+    }
+  }
+
   final case class ObjectValue(fields: List[(String, SymphonyQLOutputValue)]) extends SymphonyQLOutputValue {
     override def toString: String = ValueRenderer.outputObjectValueRenderer.renderCompact(this)
 
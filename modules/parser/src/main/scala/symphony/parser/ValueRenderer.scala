@@ -74,6 +74,7 @@ object ValueRenderer {
         case BigDecimalNumber(value)                 => write append value
         case BigIntNumber(value)                     => write append value
         case StreamValue(_)                          => write append "<stream>"
+        case EventValue(response)                    => outputValueRenderer.unsafeRender(response, indent, write)
       }
 
   lazy val outputListValueRenderer: SymphonyQLRenderer[SymphonyQLOutputValue.ListValue] =
@@ -2,6 +2,8 @@ package symphony
 package parser
 package adt
 
+import scala.util.hashing.MurmurHash3
+
 import Definition.ExecutableDefinition.*
 import Definition.TypeSystemDefinition.*
 import Definition.TypeSystemDefinition.TypeDefinition.*
@@ -53,4 +55,34 @@ final case class Document(definitions: List[Definition], sourceMapper: SourceMap
 
   def objectTypeDefinition(name: String): Option[ObjectTypeDefinition] =
     objectTypeDefinitions.find(t => t.name == name)
+
+  /**
+   * Structural hash of the definitions, shared by documents that only differ by ignored tokens. Selections hash by
+   * identity, so `definitions.hashCode` cannot be used for this.
+   */
+  @transient lazy val definitionsHash: Int = Document.hash(definitions)
+}
+
+object Document {
+
+  private def hash(definitions: List[Definition]): Int =
+    MurmurHash3.orderedHash(definitions.map {
+      case OperationDefinition(operationType, name, variableDefinitions, directives, selectionSet) =>
+        MurmurHash3.orderedHash(
+          List(operationType, name, variableDefinitions, directives, hashSelections(selectionSet))
+        )
+      case FragmentDefinition(name, typeCondition, directives, selectionSet)                       =>
+        MurmurHash3.orderedHash(List(name, typeCondition, directives, hashSelections(selectionSet)))
+      case definition                                                                              => definition.hashCode
+    })
+
+  private[symphony] def hashSelections(selectionSet: List[Selection]): Int =
+    MurmurHash3.orderedHash(selectionSet.map {
+      case Selection.Field(alias, name, arguments, directives, selectionSet) =>
+        MurmurHash3.orderedHash(List(alias, name, arguments, directives, hashSelections(selectionSet)))
+      case Selection.FragmentSpread(name, directives)                        =>
+        MurmurHash3.orderedHash(List(name, directives))
+      case Selection.InlineFragment(typeCondition, directives, selectionSet) =>
+        MurmurHash3.orderedHash(List(typeCondition, directives, hashSelections(selectionSet)))
+    })
 }
@@ -113,6 +113,26 @@ abstract class CommonParser extends Parser {
       ~> (v => StringValue(v))
   }
 
+  def blockStringValue(rawValue: String): String = CommonParser.blockStringValue(rawValue)
+
+  // ========================================Value===================================================================
+  def name: Rule1[String] = rule {
+    capture(
+      CharPredicate(
+        CharPredicate.ApplyMagnet.fromChar('_')
+      ).* ~ CharPredicate.Alpha ~ ignored ~ CharPredicate.AlphaNum.*
+    )
+  }
+
+  def operationType: Rule1[OperationType] = rule {
+    "query" ~ push(OperationType.Query) |
+      "mutation" ~ push(OperationType.Mutation) |
+      "subscription" ~ push(OperationType.Subscription)
+  }
+}
+
+object CommonParser {
+
   def blockStringValue(rawValue: String): String = {
     val l1: List[String] = rawValue.split("\r?\n").toList
     val commonIndent     = l1 match {
@@ -134,19 +154,4 @@ abstract class CommonParser extends Parser {
     val l4               = l3.reverse.dropWhile("[ \t]*".r.replaceAllIn(_, "").isEmpty).reverse
     l4.mkString("\n")
   }
-
-  // ========================================Value===================================================================
-  def name: Rule1[String] = rule {
-    capture(
-      CharPredicate(
-        CharPredicate.ApplyMagnet.fromChar('_')
-      ).* ~ CharPredicate.Alpha ~ ignored ~ CharPredicate.AlphaNum.*
-    )
-  }
-
-  def operationType: Rule1[OperationType] = rule {
-    "query" ~ push(OperationType.Query) |
-      "mutation" ~ push(OperationType.Mutation) |
-      "subscription" ~ push(OperationType.Subscription)
-  }
 }
@@ -15,7 +15,7 @@ open class DefinitionParser(val input: ParserInput) extends SelectionParser { se
 
   // ========================================Executable Definitions===================================================================
   def variableDefinitions: Rule1[List[VariableDefinition]] = rule {
-    "(" ~!~ ignored ~ variableDefinition.*.separatedBy(ignored) ~ ignored ~ ")" ~> (_.toList)
+    "(" ~!~ ignored ~ variableDefinition.+.separatedBy(ignored) ~ ignored ~ ")" ~> (_.toList)
   }
 
   def variableDefinition: Rule1[VariableDefinition] = rule {
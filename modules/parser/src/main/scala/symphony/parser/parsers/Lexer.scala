@@ -0,0 +1,276 @@
+package symphony.parser.parsers
+
+import symphony.parser.SymphonyQLError.ParsingError
+import symphony.parser.adt.LocationInfo
+
+object Token {
+  final val EOF          = 0
+  final val BANG         = 1
+  final val DOLLAR       = 2
+  final val AMP          = 3
+  final val PAREN_L      = 4
+  final val PAREN_R      = 5
+  final val SPREAD       = 6
+  final val COLON        = 7
+  final val EQUALS       = 8
+  final val AT           = 9
+  final val BRACKET_L    = 10
+  final val BRACKET_R    = 11
+  final val BRACE_L      = 12
+  final val PIPE         = 13
+  final val BRACE_R      = 14
+  final val NAME         = 15
+  final val INT          = 16
+  final val FLOAT        = 17
+  final val STRING       = 18
+  final val BLOCK_STRING = 19
+
+  def describe(kind: Int): String =
+    kind match
+      case EOF          => "<EOF>"
+      case BANG         => "'!'"
+      case DOLLAR       => "'$'"
+      case AMP          => "'&'"
+      case PAREN_L      => "'('"
+      case PAREN_R      => "')'"
+      case SPREAD       => "'...'"
+      case COLON        => "':'"
+      case EQUALS       => "'='"
+      case AT           => "'@'"
+      case BRACKET_L    => "'['"
+      case BRACKET_R    => "']'"
+      case BRACE_L      => "'{'"
+      case PIPE         => "'|'"
+      case BRACE_R      => "'}'"
+      case NAME         => "Name"
+      case INT          => "Int"
+      case FLOAT        => "Float"
+      case STRING       => "String"
+      case BLOCK_STRING => "BlockString"
+      case _            => "<unknown>"
+}
+
+/**
+ * Single-pass tokenizer for GraphQL executable documents.
+ *
+ * The lexer always holds exactly one token (`kind`, `start`, `end`); [[advance]] skips ignored tokens (white space,
+ * line terminators, commas, comments and the BOM) and reads the next one. Only string tokens allocate while lexing.
+ */
+final class Lexer(input: String) {
+  import Token.*
+
+  private val length = input.length
+  private var pos    = 0
+
+  var kind: Int                    = EOF
+  var start: Int                   = 0
+  var end: Int                     = 0
+  private var _stringValue: String = _
+
+  advance()
+
+  def text: String = input.substring(start, end)
+
+  /**
+   * Decoded value of the current `STRING` or `BLOCK_STRING` token.
+   */
+  def stringValue: String = _stringValue
+
+  def isName(name: String): Boolean =
+    kind == NAME && end - start == name.length && input.regionMatches(start, name, 0, name.length)
+
+  def location(index: Int): LocationInfo = {
+    var line   = 1
+    var column = 1
+    var i      = 0
+    while (i < index && i < length) {
+      if (input.charAt(i) == '\n') {
+        line += 1
+        column = 1
+      } else column += 1
+      i += 1
+    }
+    LocationInfo(line, column)
+  }
+
+  def error(msg: String, index: Int = start): ParsingError =
+    ParsingError(msg, Some(location(index)))
+
+  def advance(): Unit = {
+    skipIgnored()
+    start = pos
+    if (pos >= length) {
+      kind = EOF
+      end = pos
+    } else {
+      val c = input.charAt(pos)
+      c match
+        case '!'                       => punctuator(BANG)
+        case '$'                       => punctuator(DOLLAR)
+        case '&'                       => punctuator(AMP)
+        case '('                       => punctuator(PAREN_L)
+        case ')'                       => punctuator(PAREN_R)
+        case ':'                       => punctuator(COLON)
+        case '='                       => punctuator(EQUALS)
+        case '@'                       => punctuator(AT)
+        case '['                       => punctuator(BRACKET_L)
+        case ']'                       => punctuator(BRACKET_R)
+        case '{'                       => punctuator(BRACE_L)
+        case '|'                       => punctuator(PIPE)
+        case '}'                       => punctuator(BRACE_R)
+        case '.'                       =>
+          if (pos + 2 < length && input.charAt(pos + 1) == '.' && input.charAt(pos + 2) == '.') {
+            pos += 3
+            kind = SPREAD
+            end = pos
+          } else throw error("Unexpected character '.', expected '...'", pos)
+        case '"'                       =>
+          if (pos + 2 < length && input.charAt(pos + 1) == '"' && input.charAt(pos + 2) == '"') readBlockString()
+          else readString()
+        case '-'                       => readNumber()
+        case _ if c >= '0' && c <= '9' => readNumber()
+        case _ if isNameStart(c)       => readName()
+        case _                         =>
+          throw error(s"Unexpected character '${printable(c)}'", pos)
+    }
+  }
+
+  private def punctuator(tokenKind: Int): Unit = {
+    pos += 1
+    kind = tokenKind
+    end = pos
+  }
+
+  private def skipIgnored(): Unit = {
+    var skipping = true
+    while (skipping && pos < length) {
+      val c = input.charAt(pos)
+      if (c == ' ' || c == '\t' || c == ',' || c == '\n' || c == '\r' || c == '\uFEFF') pos += 1
+      else if (c == '#') {
+        pos += 1
+        while (pos < length && { val cc = input.charAt(pos); cc != '\n' && cc != '\r' }) pos += 1
+      } else skipping = false
+    }
+  }
+
+  private def isNameStart(c: Char): Boolean =
+    (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_'
+
+  private def isNameContinue(c: Char): Boolean =
+    isNameStart(c) || (c >= '0' && c <= '9')
+
+  private def isDigit(c: Char): Boolean = c >= '0' && c <= '9'
+
+  private def printable(c: Char): String =
+    if (c < ' ') f"\\u${c.toInt}%04X" else c.toString
+
+  private def readName(): Unit = {
+    pos += 1
+    while (pos < length && isNameContinue(input.charAt(pos))) pos += 1
+    kind = NAME
+    end = pos
+  }
+
+  private def readDigits(): Unit = {
+    if (pos >= length || !isDigit(input.charAt(pos)))
+      throw error("Invalid number, expected digit", pos)
+    while (pos < length && isDigit(input.charAt(pos))) pos += 1
+  }
+
+  private def readNumber(): Unit = {
+    var isFloat = false
+    if (input.charAt(pos) == '-') pos += 1
+    if (pos < length && input.charAt(pos) == '0') {
+      pos += 1
+      if (pos < length && isDigit(input.charAt(pos)))
+        throw error("Invalid number, unexpected digit after 0", pos)
+    } else readDigits()
+    if (pos < length && input.charAt(pos) == '.') {
+      isFloat = true
+      pos += 1
+      readDigits()
+    }
+    if (pos < length && (input.charAt(pos) == 'e' || input.charAt(pos) == 'E')) {
+      isFloat = true
+      pos += 1
+      if (pos < length && (input.charAt(pos) == '+' || input.charAt(pos) == '-')) pos += 1
+      readDigits()
+    }
+    if (pos < length && (input.charAt(pos) == '.' || isNameStart(input.charAt(pos))))
+      throw error(s"Invalid number, unexpected character '${input.charAt(pos)}'", pos)
+    kind = if (isFloat) FLOAT else INT
+    end = pos
+  }
+
+  private def readString(): Unit = {
+    pos += 1
+    val contentStart                     = pos
+    var builder: java.lang.StringBuilder = null
+    var chunkStart                       = pos
+    var closed                           = false
+    while (!closed) {
+      if (pos >= length) throw error("Unterminated string", start)
+      val c = input.charAt(pos)
+      if (c == '"') {
+        closed = true
+      } else if (c == '\n' || c == '\r') {
+        throw error("Unterminated string", start)
+      } else if (c == '\\') {
+        if (builder eq null) builder = new java.lang.StringBuilder(pos - contentStart + 16)
+        builder.append(input, chunkStart, pos)
+        if (pos + 1 >= length) throw error("Unterminated string", start)
+        input.charAt(pos + 1) match
+          case 'u'                          =>
+            if (pos + 6 > length) throw error("Invalid unicode escape sequence", pos)
+            val code = hexValue(pos + 2) << 12 | hexValue(pos + 3) << 8 | hexValue(pos + 4) << 4 | hexValue(pos + 5)
+            builder.append(code.toChar)
+            pos += 6
+          case 'b'                          => builder.append('\b'); pos += 2
+          case 'f'                          => builder.append('\f'); pos += 2
+          case 'n'                          => builder.append('\n'); pos += 2
+          case 'r'                          => builder.append('\r'); pos += 2
+          case 't'                          => builder.append('\t'); pos += 2
+          case escaped @ ('"' | '\\' | '/') => builder.append(escaped); pos += 2
+          case other                        =>
+            throw error(s"Invalid escape sequence '\\${printable(other)}'", pos)
+        chunkStart = pos
+      } else pos += 1
+    }
+    _stringValue =
+      if (builder eq null) input.substring(contentStart, pos)
+      else builder.append(input, chunkStart, pos).toString
+    pos += 1
+    kind = STRING
+    end = pos
+  }
+
+  private def hexValue(index: Int): Int = {
+    val c = input.charAt(index)
+    if (c >= '0' && c <= '9') c - '0'
+    else if (c >= 'a' && c <= 'f') c - 'a' + 10
+    else if (c >= 'A' && c <= 'F') c - 'A' + 10
+    else throw error("Invalid unicode escape sequence", index)
+  }
+
+  private def readBlockString(): Unit = {
+    pos += 3
+    val raw    = new java.lang.StringBuilder()
+    var closed = false
+    while (!closed) {
+      if (pos >= length) throw error("Unterminated block string", start)
+      if (input.startsWith("\"\"\"", pos)) {
+        closed = true
+        pos += 3
+      } else if (input.startsWith("\\\"\"\"", pos)) {
+        raw.append("\"\"\"")
+        pos += 4
+      } else {
+        raw.append(input.charAt(pos))
+        pos += 1
+      }
+    }
+    _stringValue = CommonParser.blockStringValue(raw.toString)
+    kind = BLOCK_STRING
+    end = pos
+  }
+}
@@ -0,0 +1,240 @@
+package symphony.parser.parsers
+
+import symphony.parser.*
+import symphony.parser.SymphonyQLError.ParsingError
+import symphony.parser.SymphonyQLInputValue.*
+import symphony.parser.SymphonyQLValue.*
+import symphony.parser.adt.*
+import symphony.parser.adt.Definition.ExecutableDefinition.*
+import symphony.parser.adt.Selection.*
+import symphony.parser.adt.Type.*
+
+/**
+ * Recursive-descent parser for executable documents on top of [[Lexer]].
+ *
+ * Every decision is taken on the current token only, so the parser never backtracks. It produces the same ADTs as
+ * [[DefinitionParser]] and reports failures by throwing [[ParsingError]].
+ */
+final class RecursiveDescentParser(input: String) {
+  import Token.*
+
+  private val lexer = new Lexer(input)
+
+  @throws[ParsingError]
+  def document(): ParsedDocument = {
+    val definitions = List.newBuilder[Definition]
+    while (lexer.kind != EOF) definitions += definition()
+    ParsedDocument(definitions.result())
+  }
+
+  @throws[ParsingError]
+  def inputValue(): SymphonyQLInputValue = {
+    val v = value()
+    if (lexer.kind != EOF) throw unexpected(EOF)
+    v
+  }
+
+  // ========================================Executable Definitions===================================================================
+  private def definition(): Definition =
+    lexer.kind match
+      case BRACE_L =>
+        OperationDefinition(OperationType.Query, None, Nil, Nil, selectionSet())
+      case NAME    =>
+        if (lexer.isName("query")) operationDefinition(OperationType.Query)
+        else if (lexer.isName("mutation")) operationDefinition(OperationType.Mutation)
+        else if (lexer.isName("subscription")) operationDefinition(OperationType.Subscription)
+        else if (lexer.isName("fragment")) fragmentDefinition()
+        else throw lexer.error(s"Unexpected Name '${lexer.text}', expected query, mutation, subscription or fragment")
+      case _       => throw unexpected(BRACE_L)
+
+  private def operationDefinition(operationType: OperationType): OperationDefinition = {
+    lexer.advance()
+    val name                = if (lexer.kind == NAME) Some(this.name()) else None
+    val variableDefinitions = if (lexer.kind == PAREN_L) this.variableDefinitions() else Nil
+    OperationDefinition(operationType, name, variableDefinitions, directives(), selectionSet())
+  }
+
+  private def fragmentDefinition(): FragmentDefinition = {
+    lexer.advance()
+    if (lexer.isName("on")) throw lexer.error("Unexpected Name 'on', expected fragment name")
+    val name = this.name()
+    if (!lexer.isName("on")) throw lexer.error(s"Expected 'on', found ${current}")
+    lexer.advance()
+    FragmentDefinition(name, namedType(), directives(), selectionSet())
+  }
+
+  // the grammar requires at least one definition between the parentheses, as for arguments and selections
+  private def variableDefinitions(): List[VariableDefinition] = {
+    expect(PAREN_L)
+    val definitions = List.newBuilder[VariableDefinition]
+    definitions += variableDefinition()
+    while (lexer.kind != PAREN_R) definitions += variableDefinition()
+    lexer.advance()
+    definitions.result()
+  }
+
+  private def variableDefinition(): VariableDefinition = {
+    expect(DOLLAR)
+    val name         = this.name()
+    expect(COLON)
+    val variableType = type_()
+    val defaultValue =
+      if (lexer.kind == EQUALS) {
+        lexer.advance()
+        Some(value())
+      } else None
+    VariableDefinition(name, variableType, defaultValue, directives())
+  }
+
+  // ========================================Selections===================================================================
+  private def selectionSet(): List[Selection] = {
+    expect(BRACE_L)
+    val selections = List.newBuilder[Selection]
+    selections += selection()
+    while (lexer.kind != BRACE_R) selections += selection()
+    lexer.advance()
+    selections.result()
+  }
+
+  private def selection(): Selection =
+    lexer.kind match
+      case NAME   => field()
+      case SPREAD =>
+        lexer.advance()
+        if (lexer.kind == NAME && !lexer.isName("on")) FragmentSpread(name(), directives())
+        else {
+          val typeCondition =
+            if (lexer.isName("on")) {
+              lexer.advance()
+              Some(namedType())
+            } else None
+          InlineFragment(typeCondition, directives(), selectionSet())
+        }
+      case _      => throw unexpected(NAME)
+
+  private def field(): Field = {
+    val nameOrAlias        = name()
+    val (alias, fieldName) =
+      if (lexer.kind == COLON) {
+        lexer.advance()
+        (Some(nameOrAlias), name())
+      } else (None, nameOrAlias)
+    val arguments          = if (lexer.kind == PAREN_L) this.arguments() else Map.empty[String, SymphonyQLInputValue]
+    val directives         = this.directives()
+    val selectionSet       = if (lexer.kind == BRACE_L) this.selectionSet() else Nil
+    Field(alias, fieldName, arguments, directives, selectionSet)
+  }
+
+  private def arguments(): Map[String, SymphonyQLInputValue] = {
+    expect(PAREN_L)
+    val arguments = Map.newBuilder[String, SymphonyQLInputValue]
+    arguments += argument()
+    while (lexer.kind != PAREN_R) arguments += argument()
+    lexer.advance()
+    arguments.result()
+  }
+
+  private def argument(): (String, SymphonyQLInputValue) = {
+    val name = this.name()
+    expect(COLON)
+    name -> value()
+  }
+
+  private def directives(): List[Directive] =
+    if (lexer.kind != AT) Nil
+    else {
+      val directives = List.newBuilder[Directive]
+      while (lexer.kind == AT) {
+        lexer.advance()
+        val name = this.name()
+        directives += Directive(name, if (lexer.kind == PAREN_L) arguments() else Map.empty)
+      }
+      directives.result()
+    }
+
+  // ========================================Types===================================================================
+  private def namedType(): NamedType = NamedType(name(), nonNull = false)
+
+  private def type_(): Type = {
+    val tpe =
+      if (lexer.kind == BRACKET_L) {
+        lexer.advance()
+        val ofType = type_()
+        expect(BRACKET_R)
+        ListType(ofType, nonNull = false)
+      } else namedType()
+    if (lexer.kind == BANG) {
+      lexer.advance()
+      tpe match
+        case t: NamedType => t.copy(nonNull = true)
+        case t: ListType  => t.copy(nonNull = true)
+    } else tpe
+  }
+
+  // ========================================Values===================================================================
+  private def value(): SymphonyQLInputValue =
+    lexer.kind match
+      case DOLLAR                =>
+        lexer.advance()
+        VariableValue(name())
+      case INT                   =>
+        val v = IntValue.stringToIntValue(lexer.text)
+        lexer.advance()
+        v
+      case FLOAT                 =>
+        val v = FloatValue(lexer.text)
+        lexer.advance()
+        v
+      case STRING | BLOCK_STRING =>
+        val v = StringValue(lexer.stringValue)
+        lexer.advance()
+        v
+      case NAME                  =>
+        val v =
+          if (lexer.isName("true")) BooleanValue(true)
+          else if (lexer.isName("false")) BooleanValue(false)
+          else if (lexer.isName("null")) NullValue
+          else EnumValue(lexer.text)
+        lexer.advance()
+        v
+      case BRACKET_L             =>
+        lexer.advance()
+        val values = List.newBuilder[SymphonyQLInputValue]
+        while (lexer.kind != BRACKET_R) values += value()
+        lexer.advance()
+        ListValue(values.result())
+      case BRACE_L               =>
+        lexer.advance()
+        val fields = Map.newBuilder[String, SymphonyQLInputValue]
+        while (lexer.kind != BRACE_R) {
+          val name = this.name()
+          expect(COLON)
+          fields += name -> value()
+        }
+        lexer.advance()
+        ObjectValue(fields.result())
+      case _                     =>
+        throw lexer.error(s"Unexpected ${current}, expected value")
+
+  // ========================================Tokens===================================================================
+  private def name(): String = {
+    if (lexer.kind != NAME) throw unexpected(NAME)
+    val text = lexer.text
+    lexer.advance()
+    text
+  }
+
+  private def expect(kind: Int): Unit =
+    if (lexer.kind != kind) throw unexpected(kind)
+    else lexer.advance()
+
+  private def current: String =
+    lexer.kind match
+      case EOF                   => describe(EOF)
+      case NAME | INT | FLOAT    => s"${describe(lexer.kind)} '${lexer.text}'"
+      case STRING | BLOCK_STRING => describe(lexer.kind)
+      case kind                  => describe(kind)
+
+  private def unexpected(expected: Int): ParsingError =
+    lexer.error(s"Expected ${describe(expected)}, found ${current}")
+}
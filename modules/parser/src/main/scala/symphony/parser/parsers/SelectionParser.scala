@@ -24,7 +24,7 @@ abstract class SelectionParser extends ValueParser {
   }
 
   def arguments: Rule1[Map[String, SymphonyQLInputValue]] = rule {
-    "(" ~!~ ignored ~ argument.*.separatedBy(ignored) ~ ignored ~ ")" ~> (_.toMap)
+    "(" ~!~ ignored ~ argument.+.separatedBy(ignored) ~ ignored ~ ")" ~> (_.toMap)
   }
 
   def directive: Rule1[Directive] = rule("@" ~ name ~ arguments ~> { (name, arguments) =>
@@ -40,7 +40,7 @@ abstract class SelectionParser extends ValueParser {
   }
 
   def selectionSet: Rule1[List[Selection]] = rule {
-    "{" ~!~ ignored ~ selection.*.separatedBy(ignored) ~ ignored ~ "}" ~> { x => x.toList }
+    "{" ~!~ ignored ~ selection.+.separatedBy(ignored) ~ ignored ~ "}" ~> { x => x.toList }
   }
 
   def namedType: Rule1[NamedType] = rule {
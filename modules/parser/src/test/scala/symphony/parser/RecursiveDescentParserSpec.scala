@@ -0,0 +1,162 @@
+package symphony.parser
+
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.*
+import symphony.parser.SymphonyQLInputValue.*
+import symphony.parser.SymphonyQLValue.*
+import symphony.parser.adt.*
+import symphony.parser.adt.Definition.ExecutableDefinition.*
+import symphony.parser.adt.Selection.*
+
+class RecursiveDescentParserSpec extends AnyFunSpec with Matchers {
+
+  private def parboiled(query: String)        = SymphonyQLParser.parseQuery(query, ParserBackend.Parboiled)
+  private def recursiveDescent(query: String) = SymphonyQLParser.parseQuery(query, ParserBackend.RecursiveDescent)
+
+  private val queries = List(
+    """{ hero { name friends { name } } }""",
+    """query HeroNameAndFriends($episode: Episode = JEDI, $withFriends: Boolean!) {
+      |  hero(episode: $episode) {
+      |    name
+      |    friends @include(if: $withFriends) {
+      |      name
+      |    }
+      |  }
+      |}""".stripMargin,
+    """mutation CreateReview($episode: Episode, $review: ReviewInput!) {
+      |  createReview(episode: $episode, review: $review) {
+      |    stars
+      |    commentary
+      |  }
+      |}""".stripMargin,
+    """subscription OnCommentAdded($repoFullName: String!) {
+      |  commentAdded(repoFullName: $repoFullName) {
+      |    id
+      |    content
+      |  }
+      |}""".stripMargin,
+    """query Search($ids: [ID!]! = [1, 2], $filter: Filter = {name: "abc", tags: ["xx", "yy"], nested: {flag: false}}) {
+      |  search(ids: $ids, filter: $filter, limit: 10, offset: -20, ratio: 3.25, nothing: null, order: DESC) {
+      |    __typename
+      |    ... on Human {
+      |      name
+      |      height
+      |    }
+      |    ... on Droid @skip(if: false) {
+      |      name
+      |      primaryFunction
+      |    }
+      |    ...StarshipFields @include(if: true)
+      |    ... {
+      |      id
+      |    }
+      |  }
+      |}
+      |
+      |fragment StarshipFields on Starship {
+      |  name
+      |  length
+      |}""".stripMargin,
+    "{\n" +
+      "  smallPic: profilePic(size: 64)\n" +
+      "  bigPic: profilePic(size: 1024)\n" +
+      "  text(value: \"tab\\there \\\"quoted\\\" \\\\ \\u0041 slash\\/\")\n" +
+      "  block(value: \"\"\"\n      first line\n        indented \\\"\"\" quotes\n      last line\n  \"\"\")\n" +
+      "}",
+    """query IntrospectionQuery {
+      |  __schema {
+      |    queryType { name }
+      |    types { ...FullType }
+      |  }
+      |}
+      |
+      |fragment FullType on __Type {
+      |  kind
+      |  name
+      |  fields(includeDeprecated: true) {
+      |    name
+      |    args { ...InputValue }
+      |    type { ...TypeRef }
+      |    isDeprecated
+      |    deprecationReason
+      |  }
+      |}
+      |
+      |fragment InputValue on __InputValue {
+      |  name
+      |  type { ...TypeRef }
+      |  defaultValue
+      |}
+      |
+      |fragment TypeRef on __Type {
+      |  kind
+      |  name
+      |  ofType { kind name ofType { kind name } }
+      |}""".stripMargin
+  )
+
+  describe("RecursiveDescentParser Spec") {
+    it("produce the same documents as the parboiled parser") {
+      queries.foreach { query =>
+        val expected = parboiled(query)
+        expected.isRight shouldEqual true
+        recursiveDescent(query) shouldEqual expected
+      }
+    }
+
+    it("reject the documents the parboiled parser rejects") {
+      List(
+        """{ field(arg: ) }""",
+        """{ field""",
+        """query ($id: ) { field }""",
+        """fragment Name { field }""",
+        """{ a {} }""",
+        """{ a() }""",
+        """query () { a }"""
+      ).foreach { query =>
+        parboiled(query).isLeft shouldEqual true
+        recursiveDescent(query).isLeft shouldEqual true
+      }
+    }
+
+    it("parse spec syntax") {
+      val query = """# leading comment
+                    |{
+                    |  user_name(id: 1.5e3, directive: ENUM_VALUE) @cached # trailing
+                    |}
+                    |# end""".stripMargin
+      recursiveDescent(query).map(_.definitions) shouldEqual Right(
+        List(
+          OperationDefinition(
+            OperationType.Query,
+            None,
+            Nil,
+            Nil,
+            List(
+              Field(
+                None,
+                "user_name",
+                Map("id" -> FloatValue("1.5e3"), "directive" -> EnumValue("ENUM_VALUE")),
+                List(Directive("cached")),
+                Nil
+              )
+            )
+          )
+        )
+      )
+    }
+
+    it("reject unterminated strings") {
+      recursiveDescent("""{ field(arg: "unterminated) }""").isLeft shouldEqual true
+      recursiveDescent("{ field(arg: \"\"\"unterminated) }").isLeft shouldEqual true
+    }
+
+    it("report the location of errors") {
+      val query = """{
+                    |  field(arg: 1)
+                    |  other(: 2)
+                    |}""".stripMargin
+      recursiveDescent(query).left.map(_.locationInfo) shouldEqual Left(Some(LocationInfo(3, 9)))
+    }
+  }
+}
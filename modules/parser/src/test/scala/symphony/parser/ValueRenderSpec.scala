@@ -40,6 +40,12 @@ class ValueRenderSpec extends AnyFunSpec with Matchers {
       println(outputValue)
       outputValue shouldEqual """<stream>"""
     }
+
+    it("SymphonyQLOutputValue EventValue toString") {
+      val response    = SymphonyQLOutputValue.ObjectValue(List("data" -> SymphonyQLValue.StringValue("string")))
+      val outputValue = SymphonyQLOutputValue.EventValue(response).toString
+      outputValue shouldEqual """{"data":"string"}"""
+    }
   }
 
   describe("ValueRender SymphonyQLInputValue Spec") {
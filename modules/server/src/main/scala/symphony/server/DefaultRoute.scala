@@ -8,10 +8,15 @@ import org.apache.pekko.http.scaladsl.server.Directives.*
 import org.apache.pekko.http.scaladsl.server.Route
 import org.apache.pekko.http.scaladsl.unmarshalling.*
 import org.apache.pekko.http.scaladsl.server.*
+import org.apache.pekko.stream.scaladsl.Source
+import org.apache.pekko.util.ByteString
 import spray.json.*
 import symphony.*
 import symphony.parser.*
 
+import java.util.concurrent.atomic.AtomicReference
+import scala.concurrent.duration.*
+
 trait DefaultRoute(symphonyQL: SymphonyQL) extends JsonFormats with SprayJsonSupport {
 
   implicit val actorSystem: ActorSystem
@@ -21,29 +26,112 @@ trait DefaultRoute(symphonyQL: SymphonyQL) extends JsonFormats with SprayJsonSup
       complete(
         HttpResponse(
           StatusCodes.OK,
-          entity = HttpEntity(ContentTypes.`application/json`, e.toJson.toString)
+          entity = jsonEntity(e.toOutputValue)
         )
       )
     }
 
+  /**
+   * The largest request body accepted, in bytes.
+   */
+  def maxRequestBodySize: Long = JsonRequestReader.DefaultMaxBodySize
+
+  /**
+   * The deepest nesting of lists and objects accepted in a request body.
+   */
+  def maxRequestDepth: Int = JsonRequestReader.DefaultMaxDepth
+
+  /**
+   * The most operations accepted in a batch, sent as an array of requests.
+   */
+  def maxRequestBatchSize: Int = JsonRequestReader.DefaultMaxBatchSize
+
+  private def jsonBody: Unmarshaller[HttpEntity, ByteString] =
+    Unmarshaller
+      .strict[HttpEntity, HttpEntity](_.withSizeLimit(maxRequestBodySize))
+      .andThen(Unmarshaller.byteStringUnmarshaller.forContentTypes(MediaTypes.`application/json`))
+
   final implicit val symphonyQLRequestUnMarshaller: Unmarshaller[HttpEntity, SymphonyQLRequest] =
-    sprayJsValueUnmarshaller.map(json => symphonyQLRequestJsonFormat.read(json))
+    jsonBody.map(bytes => JsonRequestReader.read(bytes, maxRequestDepth))
+
+  /**
+   * A single request, or the requests of a batch.
+   */
+  final val symphonyQLBatchUnMarshaller: Unmarshaller[HttpEntity, Either[SymphonyQLRequest, List[SymphonyQLRequest]]] =
+    jsonBody.map(bytes => JsonRequestReader.readBatch(bytes, maxRequestDepth, maxRequestBatchSize))
 
   final implicit val symphonyQLResponseMarshaller: ToResponseMarshaller[SymphonyQLResponse[SymphonyQLError]] =
     Marshaller.withFixedContentType[SymphonyQLResponse[SymphonyQLError], HttpResponse](ContentTypes.`application/json`)(
-      a =>
-        HttpResponse(status = StatusCodes.OK, entity = HttpEntity(ContentTypes.`application/json`, a.toJson.toString))
+      a => HttpResponse(status = StatusCodes.OK, entity = jsonEntity(a.toOutputValue))
     )
 
+  final implicit val symphonyQLBatchResponseMarshaller
+    : ToResponseMarshaller[List[SymphonyQLResponse[SymphonyQLError]]] =
+    Marshaller.withFixedContentType[List[SymphonyQLResponse[SymphonyQLError]], HttpResponse](
+      ContentTypes.`application/json`
+    )(responses =>
+      HttpResponse(
+        status = StatusCodes.OK,
+        entity = jsonEntity(SymphonyQLOutputValue.ListValue(responses.map(_.toOutputValue)))
+      )
+    )
+
+  /**
+   * Responses fitting in a single chunk are sent as is, larger ones are streamed while they are serialized. The first
+   * materialization of a streamed entity carries on with the chunks already written, each later one serializes the
+   * response again, so that it can be read more than once.
+   */
+  private def jsonEntity(value: SymphonyQLOutputValue): ResponseEntity = {
+    val chunks = JsonOutputWriter.chunks(value)
+    val first  = chunks.next()
+    if (chunks.hasNext) {
+      val started = new AtomicReference(Iterator.single(first) ++ chunks)
+      HttpEntity(
+        ContentTypes.`application/json`,
+        Source.fromIterator(() => Option(started.getAndSet(null)).getOrElse(JsonOutputWriter.chunks(value)))
+      )
+    } else HttpEntity(ContentTypes.`application/json`, first)
+  }
+
+  /**
+   * Settings of the connections upgraded to WebSocket on the same path.
+   */
+  def webSocketSettings: GraphQLWebSocket.Settings = GraphQLWebSocket.Settings.default
+
+  /**
+   * Interval of the comments keeping idle event streams open.
+   */
+  def serverSentEventsKeepAlive: FiniteDuration = 15.seconds
+
   val routes: Route = path("api" / "graphql") {
     handleExceptions(defaultExceptionHandler) {
       post {
-        entity(as[SymphonyQLRequest]) { symphonyQLRequest =>
-          complete {
-            symphonyQL.runWith(symphonyQLRequest)
-          }
+        entity(symphonyQLBatchUnMarshaller) {
+          case Left(symphonyQLRequest) =>
+            extractRequest { request =>
+              if (GraphQLServerSentEvents.accepts(request))
+                complete(
+                  HttpResponse(
+                    StatusCodes.OK,
+                    entity = GraphQLServerSentEvents.entity(symphonyQL, symphonyQLRequest, serverSentEventsKeepAlive)
+                  )
+                )
+              else
+                complete {
+                  symphonyQL.runWith(symphonyQLRequest)
+                }
+            }
+          case Right(batch)            =>
+            complete {
+              symphonyQL.runBatchWith(batch)
+            }
         }
       }
+    } ~ get {
+      handleWebSocketMessagesForProtocol(
+        GraphQLWebSocket.flow(symphonyQL, webSocketSettings),
+        GraphQLWebSocket.Protocol
+      )
     }
   }
 }
@@ -0,0 +1,89 @@
+package symphony.server
+
+import org.apache.pekko.NotUsed
+import org.apache.pekko.actor.ActorSystem
+import org.apache.pekko.http.scaladsl.model.*
+import org.apache.pekko.http.scaladsl.model.headers.Accept
+import org.apache.pekko.stream.scaladsl.*
+import org.apache.pekko.util.ByteString
+import symphony.*
+import symphony.parser.*
+import symphony.parser.SymphonyQLOutputValue.*
+import symphony.parser.SymphonyQLValue.*
+
+import scala.concurrent.duration.*
+import scala.util.control.NonFatal
+
+/**
+ * Runs operations over Server-Sent Events, in the distinct connections mode of the `graphql-sse` protocol: a request
+ * asking for `text/event-stream` is answered with one `next` event per result, then a `complete` event.
+ *
+ * Subscriptions send one result per event of their stream, requests using `@defer` or `@stream` one per incremental
+ * result. Every event is written as soon as it is emitted, and the response is a chunked entity pulling from the
+ * stream, so a slow client backpressures the stream rather than having its events buffered.
+ */
+object GraphQLServerSentEvents {
+
+  val ContentType: ContentType = MediaTypes.`text/event-stream`.toContentType
+
+  /**
+   * Whether the client asked for an event stream, rather than accepting any media type.
+   */
+  def accepts(request: HttpRequest): Boolean =
+    request
+      .header[Accept]
+      .exists(_.mediaRanges.exists(range => !range.isWildcard && range.matches(MediaTypes.`text/event-stream`)))
+
+  /**
+   * @param keepAlive
+   *   interval of the comments sent while no event is, so that proxies keep the connection open
+   */
+  def entity(symphonyQL: SymphonyQL, request: SymphonyQLRequest, keepAlive: FiniteDuration = 15.seconds)(implicit
+    actorSystem: ActorSystem
+  ): ResponseEntity =
+    HttpEntity.Chunked.fromData(
+      ContentType,
+      events(symphonyQL.runIncrementalWith(request)).keepAlive(keepAlive, () => Events.keepAlive)
+    )
+
+  /**
+   * The events sent for the results of a request, the last one being `complete`.
+   */
+  def events(results: Source[SymphonyQLIncrementalResult, NotUsed]): Source[ByteString, NotUsed] =
+    results
+      .flatMapConcat {
+        case SymphonyQLIncrementalResult.Initial(response, false) =>
+          response.data match
+            case ObjectValue(List((field, StreamValue(stream)))) =>
+              stream
+                .map(event => Events.data(SubscriptionEvents.data(field, event)))
+                .recover { case NonFatal(ex) => Events.failure(ex) }
+            case _                                               => Source.single(Events.next(response.toOutputValue))
+        case result                                               => Source.single(Events.next(result.toOutputValue))
+      }
+      .recover { case NonFatal(ex) => Events.failure(ex) }
+      .concat(Source.single(Events.complete))
+
+  private object Events {
+
+    private val nextPrefix = ByteString("event: next\ndata: ")
+
+    private val end = ByteString("\n\n")
+
+    // the JSON writer escapes line breaks, so a result always fits on a single data line
+    def next(value: SymphonyQLOutputValue): ByteString = data(JsonOutputWriter.write(value))
+
+    def data(json: ByteString): ByteString = nextPrefix ++ json ++ end
+
+    def failure(ex: Throwable): ByteString = {
+      val error = ex match
+        case error: SymphonyQLError => error
+        case other                  => SymphonyQLError.ExecutionError(other.getMessage, innerThrowable = Some(other))
+      next(SymphonyQLResponse(NullValue, List(error)).toOutputValue)
+    }
+
+    val complete: ByteString = ByteString("event: complete\ndata:\n\n")
+
+    val keepAlive: ByteString = ByteString(":\n\n")
+  }
+}
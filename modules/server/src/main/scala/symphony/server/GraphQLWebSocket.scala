@@ -0,0 +1,265 @@
+package symphony.server
+
+import org.apache.pekko.NotUsed
+import org.apache.pekko.actor.ActorSystem
+import org.apache.pekko.http.scaladsl.model.ws.*
+import org.apache.pekko.stream.*
+import org.apache.pekko.stream.scaladsl.*
+import org.apache.pekko.util.ByteString
+import symphony.*
+import symphony.parser.*
+import symphony.parser.SymphonyQLOutputValue.*
+import symphony.parser.SymphonyQLValue.*
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import scala.concurrent.*
+import scala.concurrent.duration.*
+import scala.util.control.NonFatal
+
+/**
+ * Runs operations over a WebSocket with the `graphql-transport-ws` protocol, mostly for subscriptions.
+ *
+ * All the operations of a connection write to one hub that holds at most `bufferSize` messages per operation, so a
+ * slow client backpressures the streams of its subscriptions instead of buffering their events. A connection breaking
+ * the protocol is closed, as pekko-http cannot send the protocol's close codes.
+ */
+object GraphQLWebSocket {
+
+  val Protocol: String = "graphql-transport-ws"
+
+  /**
+   * @param bufferSize
+   *   messages buffered per operation before its stream is backpressured
+   * @param keepAlive
+   *   interval of the pings sent while the connection is idle
+   * @param connectionInitTimeout
+   *   time given to the client to send `connection_init`
+   * @param maxOperations
+   *   operations running at once on a connection
+   * @param maxMessageSize
+   *   largest message accepted from the client, in characters
+   * @param maxDepth
+   *   deepest nesting of lists and objects accepted in a message
+   */
+  final case class Settings(
+    bufferSize: Int = 16,
+    keepAlive: FiniteDuration = 15.seconds,
+    connectionInitTimeout: FiniteDuration = 3.seconds,
+    maxOperations: Int = 100,
+    maxMessageSize: Int = 1024 * 1024,
+    maxDepth: Int = JsonRequestReader.DefaultMaxDepth
+  ) {
+    require(bufferSize > 0, s"bufferSize must be positive, but was $bufferSize")
+    require(maxOperations > 0, s"maxOperations must be positive, but was $maxOperations")
+  }
+
+  object Settings {
+    val default: Settings = Settings()
+  }
+
+  /**
+   * A flow handling one connection, to be materialized once per WebSocket.
+   */
+  def flow(symphonyQL: SymphonyQL, settings: Settings = Settings.default)(implicit
+    actorSystem: ActorSystem
+  ): Flow[Message, Message, NotUsed] =
+    Flow
+      .fromMaterializer { (materializer, _) =>
+        val (hub, outgoing) = MergeHub.source[Message](settings.bufferSize).preMaterialize()(materializer)
+        val connection      = new Connection(symphonyQL, settings, hub)(actorSystem, materializer)
+        val incoming        = Flow[Message]
+          .mapAsync(1)(text(_, settings.maxMessageSize)(materializer))
+          .to(Sink.foreach(connection.receive))
+        Flow
+          .fromSinkAndSourceCoupled(
+            incoming,
+            outgoing.via(connection.killSwitch.flow).keepAlive(settings.keepAlive, () => Messages.ping)
+          )
+          .watchTermination() { (_, done) =>
+            done.onComplete(_ => connection.close())(ExecutionContext.parasitic)
+            NotUsed
+          }
+      }
+      .mapMaterializedValue(_ => NotUsed)
+
+  // binary messages are not part of the protocol
+  private def text(message: Message, maxSize: Int)(implicit materializer: Materializer): Future[Option[String]] =
+    message match
+      case TextMessage.Strict(text) => Future.successful(Option.when(text.length <= maxSize)(text))
+      case message: TextMessage     =>
+        message.textStream
+          .limitWeighted(maxSize.toLong)(_.length.toLong)
+          .runFold(new java.lang.StringBuilder)(_.append(_))
+          .map(builder => Some(builder.toString))(ExecutionContext.parasitic)
+          .recover { case NonFatal(_) => None }(ExecutionContext.parasitic)
+      case message: BinaryMessage   =>
+        message.dataStream.runWith(Sink.ignore)
+        Future.successful(None)
+
+  private final class Connection(symphonyQL: SymphonyQL, settings: Settings, hub: Sink[Message, NotUsed])(implicit
+    actorSystem: ActorSystem,
+    materializer: Materializer
+  ) {
+
+    val killSwitch: SharedKillSwitch = KillSwitches.shared("graphql-transport-ws")
+
+    private val initialized            = new AtomicBoolean(false)
+    @volatile private var acknowledged = false
+    private val operations             = new ConcurrentHashMap[String, SharedKillSwitch]()
+    private val initTimeout            = actorSystem.scheduler.scheduleOnce(settings.connectionInitTimeout) {
+      if (!acknowledged) close()
+    }(actorSystem.dispatcher)
+
+    def receive(message: Option[String]): Unit =
+      message.flatMap(parse) match
+        case Some(ObjectValueFields(fields)) =>
+          fields.get("type") match
+            case Some(StringValue("connection_init")) =>
+              if (initialized.getAndSet(true)) close()
+              else {
+                initTimeout.cancel()
+                acknowledged = true
+                send(Messages.connectionAck)
+              }
+            case Some(StringValue("ping"))            => send(Messages.pong)
+            case Some(StringValue("pong"))            => ()
+            case Some(StringValue("subscribe"))       =>
+              (fields.get("id"), fields.get("payload").flatMap(request)) match
+                case (Some(StringValue(id)), Some(request)) if acknowledged && !operations.containsKey(id) =>
+                  subscribe(id, request)
+                case _                                                                                  => close()
+            case Some(StringValue("complete"))        =>
+              fields.get("id") match
+                case Some(StringValue(id)) => Option(operations.remove(id)).foreach(_.shutdown())
+                case _                     => close()
+            case _                                    => close()
+        case _                               => close()
+
+    def close(): Unit = {
+      initTimeout.cancel()
+      killSwitch.shutdown()
+      operations.values().forEach(_.shutdown())
+      operations.clear()
+    }
+
+    private def parse(text: String): Option[SymphonyQLInputValue] =
+      try Some(JsonRequestReader.readValue(ByteString(text), settings.maxDepth))
+      catch case NonFatal(_) => None
+
+    private def send(message: Message): Unit = {
+      Source.single(message).runWith(hub)
+      ()
+    }
+
+    private def subscribe(id: String, request: SymphonyQLRequest): Unit =
+      if (operations.size >= settings.maxOperations)
+        send(Messages.error(id, List(SymphonyQLError.ExecutionError("Too many operations on this connection"))))
+      else {
+        val operation = KillSwitches.shared(s"graphql-transport-ws-$id")
+        operations.put(id, operation)
+        Source
+          .futureSource(symphonyQL.runWith(request).map(operationMessages(id, _))(ExecutionContext.parasitic))
+          .recover { case NonFatal(ex) => Messages.error(id, List(toError(ex))) }
+          .via(operation.flow)
+          .watchTermination() { (_, done) =>
+            done.onComplete(_ => operations.remove(id, operation))(ExecutionContext.parasitic)
+            NotUsed
+          }
+          .runWith(hub)
+      }
+
+    /**
+     * A subscription sends one `next` message per event, other operations a single one. An operation failing before
+     * any result, e.g. on validation, sends an `error` message instead.
+     */
+    private def operationMessages(id: String, response: SymphonyQLResponse[SymphonyQLError]): Source[Message, ?] =
+      response.data match
+        case ObjectValue(List((field, StreamValue(stream)))) =>
+          stream
+            .map(event => Messages.event(id, field, event))
+            .recover { case NonFatal(ex) => Messages.next(id, SymphonyQLResponse(NullValue, List(toError(ex)))) }
+            .concat(Source.single(Messages.complete(id)))
+        case NullValue if response.errors.nonEmpty           =>
+          Source.single(Messages.error(id, response.errors))
+        case _                                               =>
+          Source(List(Messages.next(id, response), Messages.complete(id)))
+
+    private def toError(ex: Throwable): SymphonyQLError =
+      ex match
+        case error: SymphonyQLError => error
+        case other                  => SymphonyQLError.ExecutionError(other.getMessage, innerThrowable = Some(other))
+  }
+
+  private object ObjectValueFields {
+    def unapply(value: SymphonyQLInputValue): Option[Map[String, SymphonyQLInputValue]] =
+      value match
+        case SymphonyQLInputValue.ObjectValue(fields) => Some(fields)
+        case _                                        => None
+  }
+
+  private def request(payload: SymphonyQLInputValue): Option[SymphonyQLRequest] =
+    payload match
+      case ObjectValueFields(fields) =>
+        def string(name: String)  = fields.get(name).collect { case StringValue(value) => value }
+        def objects(name: String) = fields.get(name).collect { case ObjectValueFields(values) => values }
+        val operationId           = string("id")
+        val extensions            = objects("extensions")
+        // trusted operations and automatic persisted queries may only send an id or the hash of a query
+        val registered            = operationId.nonEmpty || extensions.exists(_.contains("persistedQuery"))
+        string("query")
+          .orElse(Option.when(registered)(""))
+          .map(query =>
+            SymphonyQLRequest(
+              query,
+              string("operationName"),
+              objects("variables"),
+              extensions,
+              operationId = operationId
+            )
+          )
+      case _                         => None
+
+  private object Messages {
+
+    val connectionAck: Message = message("connection_ack")
+
+    val ping: Message = message("ping")
+
+    val pong: Message = message("pong")
+
+    def next(id: String, response: SymphonyQLResponse[SymphonyQLError]): Message =
+      message("next", Some(id), Some(response.toOutputValue))
+
+    // the same as `next`, with the event rendered once for all of its subscribers
+    def event(id: String, field: String, event: SymphonyQLOutputValue): Message =
+      TextMessage.Strict(
+        "{\"id\":" + JsonOutputWriter.write(StringValue(id)).utf8String + ",\"type\":\"next\",\"payload\":" +
+          SubscriptionEvents.dataText(field, event) + "}"
+      )
+
+    def error(id: String, errors: List[SymphonyQLError]): Message =
+      message("error", Some(id), Some(ListValue(errors.map(_.toOutputValue))))
+
+    def complete(id: String): Message = message("complete", Some(id))
+
+    private def message(
+      tpe: String,
+      id: Option[String] = None,
+      payload: Option[SymphonyQLOutputValue] = None
+    ): Message =
+      TextMessage.Strict(
+        JsonOutputWriter
+          .write(
+            ObjectValue(
+              List(
+                "id"      -> id.map(StringValue(_)),
+                "type"    -> Some(StringValue(tpe)),
+                "payload" -> payload
+              ).collect { case (name, Some(v)) => name -> v }
+            )
+          )
+          .utf8String
+      )
+  }
+}
@@ -79,6 +79,7 @@ trait OutputFormats extends DefaultJsonProtocol {
         case SymphonyQLOutputValue.ListValue(values)         => JsArray(values.map(symphonyQLOutputValueJsonFormat.write): _*)
         case obj @ SymphonyQLOutputValue.ObjectValue(fields) => objectValueJsonFormat.write(obj)
         case s: SymphonyQLOutputValue.StreamValue            => JsString(s.toString)
+        case SymphonyQLOutputValue.EventValue(response)      => symphonyQLOutputValueJsonFormat.write(response)
       }
     }
 
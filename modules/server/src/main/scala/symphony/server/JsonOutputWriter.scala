@@ -0,0 +1,236 @@
+package symphony.server
+
+import org.apache.pekko.util.ByteString
+import symphony.parser.*
+import symphony.parser.SymphonyQLOutputValue.*
+import symphony.parser.SymphonyQLValue.*
+
+import java.util.ArrayDeque
+
+/**
+ * Writes output values as JSON straight into UTF-8 bytes, without going through spray-json trees or an intermediate
+ * string. Strings are escaped while they are copied and integers are written digit by digit.
+ *
+ * The bytes are handed out as chunks of at most `chunkSize` bytes, written on demand, so that a large response can be
+ * streamed while it is serialized.
+ */
+object JsonOutputWriter {
+
+  val DefaultChunkSize: Int = 8192
+
+  def chunks(value: SymphonyQLOutputValue, chunkSize: Int = DefaultChunkSize): Iterator[ByteString] = {
+    require(chunkSize >= MinChunkSize, s"chunkSize must be at least $MinChunkSize")
+    new Chunks(value, chunkSize)
+  }
+
+  def write(value: SymphonyQLOutputValue): ByteString = {
+    val builder = ByteString.newBuilder
+    chunks(value).foreach(builder.append)
+    builder.result()
+  }
+
+  // the longest sequence written at once: a Long with its sign
+  private val MinChunkSize = 20
+
+  private val Hex = "0123456789abcdef".getBytes
+
+  private sealed abstract class Frame {
+    var first = true
+  }
+
+  private final class ObjectFrame(var fields: List[(String, SymphonyQLOutputValue)]) extends Frame
+
+  private final class ListFrame(var values: List[SymphonyQLOutputValue]) extends Frame
+
+  /**
+   * Walks the value with an explicit stack, so that it can stop as soon as a chunk is full and resume on the next call.
+   * Every chunk gets its own array, handed over to the `ByteString` without copying.
+   */
+  private final class Chunks(root: SymphonyQLOutputValue, chunkSize: Int) extends Iterator[ByteString] {
+
+    private val stack     = new ArrayDeque[Frame]()
+    private val completed = new ArrayDeque[ByteString]()
+    private var buffer    = new Array[Byte](chunkSize)
+    private var pos       = 0
+    private var started   = false
+    private var done      = false
+
+    override def hasNext: Boolean = !done
+
+    override def next(): ByteString = {
+      if (done) throw new NoSuchElementException("No more JSON chunks")
+      if (!started) {
+        started = true
+        writeValue(root)
+      }
+      while (completed.isEmpty && !stack.isEmpty) step()
+      if (completed.isEmpty) {
+        done = true
+        seal()
+      }
+      completed.poll()
+    }
+
+    private def step(): Unit =
+      stack.peek() match
+        case frame: ObjectFrame =>
+          frame.fields match
+            case (name, value) :: tail =>
+              separate(frame)
+              writeString(name)
+              writeByte(':')
+              frame.fields = tail
+              writeValue(value)
+            case Nil                   =>
+              writeByte('}')
+              stack.pop()
+              ()
+        case frame: ListFrame   =>
+          frame.values match
+            case value :: tail =>
+              separate(frame)
+              frame.values = tail
+              writeValue(value)
+            case Nil           =>
+              writeByte(']')
+              stack.pop()
+              ()
+
+    private def separate(frame: Frame): Unit =
+      if (frame.first) frame.first = false
+      else writeByte(',')
+
+    private def writeValue(value: SymphonyQLOutputValue): Unit =
+      value match
+        case ObjectValue(fields)                => open('{', new ObjectFrame(fields))
+        case ListValue(values)                  => open('[', new ListFrame(values))
+        case StringValue(value)                 => writeString(value)
+        case EnumValue(value)                   => writeString(value)
+        case BooleanValue(value)                => writeAscii(if (value) "true" else "false")
+        case NullValue                          => writeAscii("null")
+        case IntValue.IntNumber(value)          => writeLong(value.toLong)
+        case IntValue.LongNumber(value)         => writeLong(value)
+        case IntValue.BigIntNumber(value)       => writeAscii(value.toString)
+        case FloatValue.FloatNumber(value)      => writeDouble(value.toDouble)
+        case FloatValue.DoubleNumber(value)     => writeDouble(value)
+        case FloatValue.BigDecimalNumber(value) => writeAscii(value.toString)
+        case s: StreamValue                     => writeString(s.toString)
+        case EventValue(response)               => writeValue(response)
+
+    private def open(bracket: Char, frame: Frame): Unit = {
+      writeByte(bracket)
+      stack.push(frame)
+    }
+
+    // JSON has no representation for NaN and the infinities
+    private def writeDouble(value: Double): Unit =
+      if (java.lang.Double.isFinite(value)) writeAscii(java.lang.Double.toString(value))
+      else writeAscii("null")
+
+    private def writeLong(value: Long): Unit =
+      if (value == Long.MinValue) writeAscii("-9223372036854775808")
+      else {
+        ensure(MinChunkSize)
+        var v = value
+        if (v < 0) {
+          put('-')
+          v = -v
+        }
+        var digits = 1
+        var rest   = v / 10
+        while (rest > 0) {
+          digits += 1
+          rest /= 10
+        }
+        val end = pos + digits
+        var i   = end
+        while (i > pos) {
+          i -= 1
+          buffer(i) = ('0' + (v % 10)).toByte
+          v /= 10
+        }
+        pos = end
+      }
+
+    private def writeString(value: String): Unit = {
+      writeByte('"')
+      val length = value.length
+      var i      = 0
+      while (i < length) {
+        val c = value.charAt(i)
+        ensure(6)
+        if (c < 0x80) {
+          if (c >= 0x20 && c != '"' && c != '\\') put(c)
+          else escape(c)
+        } else if (c < 0x800) {
+          put(0xc0 | (c >> 6))
+          put(0x80 | (c & 0x3f))
+        } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+          val codePoint = Character.toCodePoint(c, value.charAt(i + 1))
+          put(0xf0 | (codePoint >> 18))
+          put(0x80 | ((codePoint >> 12) & 0x3f))
+          put(0x80 | ((codePoint >> 6) & 0x3f))
+          put(0x80 | (codePoint & 0x3f))
+          i += 1
+        } else if (Character.isSurrogate(c)) escape(c)
+        else {
+          put(0xe0 | (c >> 12))
+          put(0x80 | ((c >> 6) & 0x3f))
+          put(0x80 | (c & 0x3f))
+        }
+        i += 1
+      }
+      writeByte('"')
+    }
+
+    // callers ensure room for 6 bytes
+    private def escape(c: Char): Unit = {
+      put('\\')
+      c match
+        case '"'  => put('"')
+        case '\\' => put('\\')
+        case '\b' => put('b')
+        case '\f' => put('f')
+        case '\n' => put('n')
+        case '\r' => put('r')
+        case '\t' => put('t')
+        case _    =>
+          put('u')
+          put(Hex((c >> 12) & 0xf))
+          put(Hex((c >> 8) & 0xf))
+          put(Hex((c >> 4) & 0xf))
+          put(Hex(c & 0xf))
+    }
+
+    private def writeAscii(value: String): Unit = {
+      val length = value.length
+      var i      = 0
+      while (i < length) {
+        ensure(1)
+        put(value.charAt(i))
+        i += 1
+      }
+    }
+
+    private def writeByte(b: Char): Unit = {
+      ensure(1)
+      put(b)
+    }
+
+    private def put(b: Int): Unit = {
+      buffer(pos) = b.toByte
+      pos += 1
+    }
+
+    private def ensure(bytes: Int): Unit =
+      if (pos + bytes > buffer.length) {
+        seal()
+        buffer = new Array[Byte](chunkSize)
+      }
+
+    private def seal(): Unit = {
+      if (pos > 0) completed.add(ByteString.fromArrayUnsafe(buffer, 0, pos))
+      pos = 0
+    }
+  }
+}
@@ -0,0 +1,314 @@
+package symphony.server
+
+import org.apache.pekko.util.ByteString
+import symphony.SymphonyQLRequest
+import symphony.parser.*
+import symphony.parser.SymphonyQLValue.*
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * Reads request bodies straight from their UTF-8 bytes into a [[SymphonyQLRequest]], without going through spray-json
+ * trees. Integers are accumulated digit by digit and only numbers with a fraction or an exponent are parsed as
+ * decimals.
+ *
+ * Arrays and objects may not be nested deeper than `maxDepth`, the size of the body itself is bounded by the caller.
+ */
+object JsonRequestReader {
+
+  val DefaultMaxBodySize: Long = 8L * 1024 * 1024
+
+  val DefaultMaxDepth: Int = 128
+
+  val DefaultMaxBatchSize: Int = 32
+
+  def read(bytes: ByteString, maxDepth: Int = DefaultMaxDepth): SymphonyQLRequest =
+    new Reader(bytes.toArray, maxDepth).request()
+
+  /**
+   * Reads either a single request, or an array of at most `maxBatchSize` requests to be run as a batch.
+   */
+  def readBatch(
+    bytes: ByteString,
+    maxDepth: Int = DefaultMaxDepth,
+    maxBatchSize: Int = DefaultMaxBatchSize
+  ): Either[SymphonyQLRequest, List[SymphonyQLRequest]] =
+    new Reader(bytes.toArray, maxDepth).requests(maxBatchSize)
+
+  /**
+   * Reads any JSON value, e.g. the messages of the WebSocket protocol.
+   */
+  def readValue(bytes: ByteString, maxDepth: Int = DefaultMaxDepth): SymphonyQLInputValue =
+    new Reader(bytes.toArray, maxDepth).value()
+
+  private final class Reader(bytes: Array[Byte], maxDepth: Int) {
+
+    private var pos   = 0
+    private var depth = 0
+
+    def request(): SymphonyQLRequest = {
+      val request = readRequest()
+      end()
+      request
+    }
+
+    def requests(maxBatchSize: Int): Either[SymphonyQLRequest, List[SymphonyQLRequest]] = {
+      skipWhitespace()
+      val requests =
+        if (pos < bytes.length && bytes(pos) == '[') {
+          enter('[')
+          val batch = List.newBuilder[SymphonyQLRequest]
+          var size  = 0
+          if (exit(']')) throw SymphonyQLError.ArgumentError("Invalid batch: no operation")
+          var more = true
+          while (more) {
+            size += 1
+            if (size > maxBatchSize)
+              throw SymphonyQLError.ArgumentError(s"Invalid batch: more than $maxBatchSize operations")
+            batch += readRequest()
+            more = separator(']')
+          }
+          Right(batch.result())
+        } else Left(readRequest())
+      end()
+      requests
+    }
+
+    private def readRequest(): SymphonyQLRequest = {
+      var query         = Option.empty[String]
+      var operationName = Option.empty[String]
+      var variables     = Option.empty[Map[String, SymphonyQLInputValue]]
+      var extensions    = Option.empty[Map[String, SymphonyQLInputValue]]
+      var operationId   = Option.empty[String]
+      readObject {
+        case "query"         => query = nullable(readString())
+        case "id"            => operationId = nullable(readString())
+        case "operationName" => operationName = nullable(readString())
+        case "variables"     => variables = nullable(readFields())
+        case "extensions"    => extensions = nullable(readFields())
+        case _               => readValue()
+      }
+      // trusted operations and automatic persisted queries may only send an id or the hash of a query
+      val registered = operationId.nonEmpty || extensions.exists(_.contains("persistedQuery"))
+      SymphonyQLRequest(
+        query
+          .orElse(Option.when(registered)(""))
+          .getOrElse(throw SymphonyQLError.ArgumentError("Invalid json: missing query")),
+        operationName,
+        variables,
+        extensions,
+        operationId = operationId
+      )
+    }
+
+    def value(): SymphonyQLInputValue = {
+      val value = readValue()
+      end()
+      value
+    }
+
+    private def end(): Unit = {
+      skipWhitespace()
+      if (pos < bytes.length) fail("end of input")
+    }
+
+    private def nullable[A](read: => A): Option[A] = {
+      skipWhitespace()
+      if (pos < bytes.length && bytes(pos) == 'n') {
+        readLiteral("null")
+        None
+      } else Some(read)
+    }
+
+    private def readValue(): SymphonyQLInputValue = {
+      skipWhitespace()
+      if (pos >= bytes.length) fail("a value")
+      bytes(pos).toChar match
+        case '{'                                     => SymphonyQLInputValue.ObjectValue(readFields())
+        case '['                                     => SymphonyQLInputValue.ListValue(readList())
+        case '"'                                     => StringValue(readString())
+        case 't'                                     => readLiteral("true"); BooleanValue(true)
+        case 'f'                                     => readLiteral("false"); BooleanValue(false)
+        case 'n'                                     => readLiteral("null"); NullValue
+        case c if c == '-' || (c >= '0' && c <= '9') => readNumber()
+        case _                                       => fail("a value")
+    }
+
+    private def readFields(): Map[String, SymphonyQLInputValue] = {
+      val fields = Map.newBuilder[String, SymphonyQLInputValue]
+      readObject(name => fields += name -> readValue())
+      fields.result()
+    }
+
+    private def readObject(readField: String => Unit): Unit = {
+      enter('{')
+      if (!exit('}')) {
+        var more = true
+        while (more) {
+          skipWhitespace()
+          val name = readString()
+          expect(':')
+          readField(name)
+          more = separator('}')
+        }
+      }
+    }
+
+    private def readList(): List[SymphonyQLInputValue] = {
+      enter('[')
+      val values = List.newBuilder[SymphonyQLInputValue]
+      if (!exit(']')) {
+        var more = true
+        while (more) {
+          values += readValue()
+          more = separator(']')
+        }
+      }
+      values.result()
+    }
+
+    private def enter(open: Char): Unit = {
+      expect(open)
+      depth += 1
+      if (depth > maxDepth) throw SymphonyQLError.ArgumentError(s"Invalid json: nested deeper than $maxDepth levels")
+    }
+
+    // consumes `close` if it comes next
+    private def exit(close: Char): Boolean = {
+      skipWhitespace()
+      val closed = pos < bytes.length && bytes(pos) == close
+      if (closed) {
+        pos += 1
+        depth -= 1
+      }
+      closed
+    }
+
+    // whether another element follows, otherwise consumes `close`
+    private def separator(close: Char): Boolean = {
+      skipWhitespace()
+      if (pos < bytes.length && bytes(pos) == ',') {
+        pos += 1
+        true
+      } else if (exit(close)) false
+      else fail(s"',' or '$close'")
+    }
+
+    private def readString(): String = {
+      expect('"')
+      var builder: java.lang.StringBuilder = null
+      var start                            = pos
+      var ascii                            = true
+      var b                                = nextByte()
+      while (b != '"') {
+        if (b == '\\') {
+          if (builder == null) builder = new java.lang.StringBuilder()
+          builder.append(decode(start, pos - 1, ascii))
+          builder.append(readEscape())
+          start = pos
+          ascii = true
+        } else if (b < 0) ascii = false
+        else if (b < 0x20) fail("an escaped control character")
+        b = nextByte()
+      }
+      val last = decode(start, pos - 1, ascii)
+      if (builder == null) last else builder.append(last).toString
+    }
+
+    private def readEscape(): Char =
+      nextByte().toChar match
+        case '"'  => '"'
+        case '\\' => '\\'
+        case '/'  => '/'
+        case 'b'  => '\b'
+        case 'f'  => '\f'
+        case 'n'  => '\n'
+        case 'r'  => '\r'
+        case 't'  => '\t'
+        case 'u'  =>
+          var code = 0
+          var i    = 0
+          while (i < 4) {
+            val digit = Character.digit(nextByte().toInt, 16)
+            if (digit < 0) fail("a hexadecimal digit")
+            code = (code << 4) | digit
+            i += 1
+          }
+          code.toChar
+        case _    => fail("an escape sequence")
+
+    private def readNumber(): SymphonyQLInputValue = {
+      val start    = pos
+      val negative = bytes(pos) == '-'
+      if (negative) pos += 1
+      val integral = pos
+      // a leading zero is not followed by other digits
+      if (pos < bytes.length && bytes(pos) == '0') pos += 1
+      else readDigits()
+      val digits  = pos - integral
+      var decimal = false
+      if (pos < bytes.length && bytes(pos) == '.') {
+        pos += 1
+        readDigits()
+        decimal = true
+      }
+      if (pos < bytes.length && (bytes(pos) == 'e' || bytes(pos) == 'E')) {
+        pos += 1
+        if (pos < bytes.length && (bytes(pos) == '+' || bytes(pos) == '-')) pos += 1
+        readDigits()
+        decimal = true
+      }
+      if (decimal) FloatValue(decode(start, pos, ascii = true))
+      else if (digits <= 18) {
+        var value = 0L
+        var i     = integral
+        while (i < pos) {
+          value = value * 10 + (bytes(i) - '0')
+          i += 1
+        }
+        if (negative) value = -value
+        if (value.isValidInt) IntValue(value.toInt) else IntValue(value)
+      } else {
+        val value = BigInt(decode(start, pos, ascii = true))
+        if (value.isValidLong) IntValue(value.toLong) else IntValue(value)
+      }
+    }
+
+    private def readDigits(): Unit = {
+      val start = pos
+      while (pos < bytes.length && bytes(pos) >= '0' && bytes(pos) <= '9') pos += 1
+      if (pos == start) fail("a digit")
+    }
+
+    private def readLiteral(literal: String): Unit = {
+      var i = 0
+      while (i < literal.length) {
+        if (nextByte() != literal.charAt(i)) fail(s"'$literal'")
+        i += 1
+      }
+    }
+
+    private def expect(c: Char): Unit = {
+      skipWhitespace()
+      if (nextByte() != c) fail(s"'$c'")
+    }
+
+    private def nextByte(): Byte = {
+      if (pos >= bytes.length) fail("more input")
+      val b = bytes(pos)
+      pos += 1
+      b
+    }
+
+    private def skipWhitespace(): Unit =
+      while (
+        pos < bytes.length && (bytes(pos) == ' ' || bytes(pos) == '\n' || bytes(pos) == '\r' || bytes(pos) == '\t')
+      ) pos += 1
+
+    private def decode(start: Int, end: Int, ascii: Boolean): String =
+      new String(bytes, start, end - start, if (ascii) StandardCharsets.ISO_8859_1 else StandardCharsets.UTF_8)
+
+    private def fail(expected: String): Nothing =
+      throw SymphonyQLError.ArgumentError(s"Invalid json: expected $expected at offset $pos")
+  }
+}
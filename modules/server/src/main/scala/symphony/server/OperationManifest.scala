@@ -0,0 +1,42 @@
+package symphony.server
+
+import spray.json.*
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.*
+
+/**
+ * Reads the manifest of the trusted operations of a deployment, for
+ * [[symphony.SymphonyQL.SymphonyQLBuilder.trustedOperations]].
+ *
+ * A manifest is either a JSON object of ids to queries, or an Apollo persisted query manifest, whose `operations`
+ * array holds objects with an `id` and a `body`.
+ */
+object OperationManifest {
+
+  def load(path: Path): Map[String, String] =
+    parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8))
+
+  def parse(json: String): Map[String, String] =
+    json.parseJson match
+      case JsObject(fields) =>
+        fields.get("operations") match
+          case Some(JsArray(operations)) => operations.map(operation).toMap
+          case _                         =>
+            fields.map {
+              case (id, JsString(query)) => id -> query
+              case (id, _)               => invalid(s"the query of operation $id is not a string")
+            }
+      case _                => invalid("expected an object")
+
+  private def operation(json: JsValue): (String, String) =
+    json match
+      case JsObject(fields) =>
+        (fields.get("id"), fields.get("body")) match
+          case (Some(JsString(id)), Some(JsString(body))) => id -> body
+          case _                                          => invalid(s"operations need an id and a body: $json")
+      case _                => invalid(s"operations need an id and a body: $json")
+
+  private def invalid(message: String): Nothing =
+    throw new IllegalArgumentException(s"Invalid operation manifest: $message")
+}
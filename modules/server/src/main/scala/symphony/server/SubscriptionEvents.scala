@@ -0,0 +1,40 @@
+package symphony.server
+
+import org.apache.pekko.util.ByteString
+import symphony.parser.*
+import symphony.parser.SymphonyQLOutputValue.EventValue
+import symphony.parser.SymphonyQLValue.*
+
+/**
+ * Renders the events of subscriptions as a response: the response of an [[SymphonyQLOutputValue.EventValue]], sent
+ * with the errors of its event, or else the data of a response, `{"data":{"<field>":<event>}}`.
+ *
+ * Subscribers of a shared source all receive the same [[SymphonyQLOutputValue.EventValue]] for an event, which keeps
+ * its JSON: an event is rendered once, then only copied for each of its subscribers.
+ */
+private[server] object SubscriptionEvents {
+
+  private final class Rendered(val bytes: ByteString) {
+    lazy val text: String = bytes.utf8String
+  }
+
+  private val render: SymphonyQLOutputValue => Rendered = value => new Rendered(JsonOutputWriter.write(value))
+
+  private val dataStart = ByteString("{\"data\":{")
+
+  private val dataEnd = ByteString("}}")
+
+  def data(field: String, event: SymphonyQLOutputValue): ByteString =
+    event match
+      case event: EventValue => event.renderedWith(render).bytes
+      case _                 =>
+        dataStart ++ JsonOutputWriter.write(StringValue(field)) ++ ByteString(":") ++ JsonOutputWriter.write(event) ++
+          dataEnd
+
+  def dataText(field: String, event: SymphonyQLOutputValue): String =
+    event match
+      case event: EventValue => event.renderedWith(render).text
+      case _                 =>
+        "{\"data\":{" + JsonOutputWriter.write(StringValue(field)).utf8String + ":" +
+          JsonOutputWriter.write(event).utf8String + "}}"
+}
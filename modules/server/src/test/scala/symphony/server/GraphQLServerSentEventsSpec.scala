@@ -0,0 +1,99 @@
+package symphony.server
+
+import org.apache.pekko.NotUsed
+import org.apache.pekko.actor.ActorSystem
+import org.apache.pekko.http.scaladsl.model.*
+import org.apache.pekko.http.scaladsl.model.headers.Accept
+import org.apache.pekko.stream.scaladsl.*
+import org.apache.pekko.util.ByteString
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.*
+import symphony.*
+import symphony.schema.*
+
+import java.util.concurrent.atomic.AtomicLong
+import scala.concurrent.*
+import scala.concurrent.duration.*
+
+class GraphQLServerSentEventsSpec extends AnyFunSpec with Matchers {
+
+  final case class Query(version: String)
+  final case class Subscription(numbers: Source[Int, NotUsed], produced: Source[Long, NotUsed])
+
+  private val counter = new AtomicLong()
+
+  private val graphql = SymphonyQL
+    .newSymphonyQL()
+    .addQuery(Query("1.0"), Schema.derived[Query])
+    .addSubscription(
+      Subscription(Source(1 to 100000), Source.repeat(()).map(_ => counter.incrementAndGet())),
+      Schema.derived[Subscription]
+    )
+    .build()
+
+  private def events(query: String)(implicit actorSystem: ActorSystem): Source[String, Any] =
+    GraphQLServerSentEvents
+      .entity(graphql, SymphonyQLRequest(query), 1.minute)
+      .dataBytes
+      .via(Framing.delimiter(ByteString("\n\n"), Int.MaxValue))
+      .map(_.utf8String)
+
+  describe("GraphQLServerSentEvents Spec") {
+
+    it("accept only requests asking for an event stream") {
+      def request(ranges: MediaRange*) = HttpRequest(headers = List(Accept(ranges*)))
+      val json                         = MediaRange(MediaTypes.`application/json`)
+      val eventStream                  = MediaRange(MediaTypes.`text/event-stream`)
+
+      GraphQLServerSentEvents.accepts(request(eventStream)) shouldEqual true
+      GraphQLServerSentEvents.accepts(request(json, eventStream)) shouldEqual true
+      GraphQLServerSentEvents.accepts(request(json)) shouldEqual false
+      GraphQLServerSentEvents.accepts(request(MediaRanges.`*/*`)) shouldEqual false
+      GraphQLServerSentEvents.accepts(HttpRequest()) shouldEqual false
+    }
+
+    it("send queries as a single next event") {
+      implicit val actorSystem: ActorSystem = ActorSystem("graphQLServerSentEventsQuerySpec")
+      val result = Await.result(events("{ version }").runWith(Sink.seq), 10.seconds)
+
+      result shouldEqual List(
+        """event: next
+          |data: {"data":{"version":"1.0"}}""".stripMargin,
+        """event: complete
+          |data:""".stripMargin
+      )
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("send every event of a fast subscription") {
+      implicit val actorSystem: ActorSystem = ActorSystem("graphQLServerSentEventsRateSpec")
+      val result = Await.result(events("subscription { numbers }").runWith(Sink.seq), 30.seconds)
+
+      result.size shouldEqual 100001
+      result.head shouldEqual
+        """event: next
+          |data: {"data":{"numbers":1}}""".stripMargin
+      result(99999) shouldEqual
+        """event: next
+          |data: {"data":{"numbers":100000}}""".stripMargin
+      result.last should startWith("event: complete")
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("backpressure subscriptions to slow clients") {
+      implicit val actorSystem: ActorSystem = ActorSystem("graphQLServerSentEventsBackpressureSpec")
+      val client = events("subscription { produced }").runWith(Sink.queue(1))
+
+      Await.result(client.pull(), 10.seconds).get should include("\"produced\":")
+      Thread.sleep(500)
+      val produced = counter.get()
+      Thread.sleep(500)
+
+      // only the buffers between the stream and the client fill up, the infinite stream is then paused
+      counter.get() shouldEqual produced
+      produced should be < 1000L
+      client.cancel()
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+  }
+}
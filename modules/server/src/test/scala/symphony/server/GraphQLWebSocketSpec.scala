@@ -0,0 +1,174 @@
+package symphony.server
+
+import org.apache.pekko.NotUsed
+import org.apache.pekko.actor.ActorSystem
+import org.apache.pekko.http.scaladsl.Http
+import org.apache.pekko.http.scaladsl.model.ws.*
+import org.apache.pekko.stream.scaladsl.*
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.*
+import symphony.*
+import symphony.schema.*
+
+import java.util.concurrent.atomic.AtomicLong
+import scala.concurrent.*
+import scala.concurrent.duration.*
+
+class GraphQLWebSocketSpec extends AnyFunSpec with Matchers {
+
+  final case class Query(version: String)
+  final case class Subscription(ticks: Source[String, NotUsed])
+
+  // counts the events produced by all of its subscriptions
+  private def ticker(produced: AtomicLong): SymphonyQL = SymphonyQL
+    .newSymphonyQL()
+    .addQuery(Query("1.0"), Schema.derived[Query])
+    .addSubscription(
+      Subscription(Source.repeat("tick").map { tick =>
+        produced.incrementAndGet()
+        tick
+      }),
+      Schema.derived[Subscription]
+    )
+    .build()
+
+  private val graphql = ticker(new AtomicLong())
+
+  private val init = """{"type":"connection_init"}"""
+
+  private def subscribe(id: String, query: String): String =
+    s"""{"id":"$id","type":"subscribe","payload":{"query":"$query"}}"""
+
+  private def messages(texts: Seq[String]): Source[Message, NotUsed] =
+    Source(texts.toList.map(TextMessage(_))).concat(Source.maybe[Message]).mapMaterializedValue(_ => NotUsed)
+
+  // runs the flow of a connection in-process
+  private def connect(texts: String*)(implicit actorSystem: ActorSystem): SinkQueueWithCancel[Message] =
+    messages(texts).via(GraphQLWebSocket.flow(graphql)).runWith(Sink.queue())
+
+  /**
+   * Serves the default route, WebSockets being upgraded on `GET /api/graphql`, and returns its port.
+   */
+  private def serve(settings: GraphQLWebSocket.Settings, symphonyQL: SymphonyQL = graphql)(implicit
+    system: ActorSystem
+  ): Int = {
+    val route = new DefaultRoute(symphonyQL) {
+      override implicit val actorSystem: ActorSystem            = system
+      override def webSocketSettings: GraphQLWebSocket.Settings = settings
+    }
+    Await.result(Http().newServerAt("127.0.0.1", 0).bind(route.routes), 10.seconds).localAddress.getPort
+  }
+
+  // opens a WebSocket connection to the server
+  private def open(port: Int, texts: String*)(implicit actorSystem: ActorSystem): SinkQueueWithCancel[Message] = {
+    val (upgrade, connection) = Http().singleWebSocketRequest(
+      WebSocketRequest(s"ws://127.0.0.1:$port/api/graphql", subprotocol = Some(GraphQLWebSocket.Protocol)),
+      Flow.fromSinkAndSourceMat(Sink.queue[Message](), messages(texts))(Keep.left)
+    )
+    Await.result(upgrade, 10.seconds) match
+      case ValidUpgrade(_, protocol)     => protocol shouldEqual Some(GraphQLWebSocket.Protocol)
+      case InvalidUpgradeResponse(_, ex) => fail(ex)
+    connection
+  }
+
+  private def pull(connection: SinkQueueWithCancel[Message])(implicit actorSystem: ActorSystem): Option[String] =
+    Await.result(connection.pull(), 10.seconds).map {
+      case TextMessage.Strict(text) => text
+      case message: TextMessage     => Await.result(message.textStream.runFold("")(_ + _), 10.seconds)
+      case other                    => fail(s"unexpected $other")
+    }
+
+  describe("GraphQLWebSocket Spec") {
+
+    it("acknowledge connections and stream subscription events") {
+      implicit val actorSystem: ActorSystem = ActorSystem("graphQLWebSocketSpec")
+      val connection                        =
+        open(serve(GraphQLWebSocket.Settings()), init, subscribe("1", "subscription { ticks }"))
+
+      pull(connection) shouldEqual Some("""{"type":"connection_ack"}""")
+      pull(connection) shouldEqual Some("""{"id":"1","type":"next","payload":{"data":{"ticks":"tick"}}}""")
+      pull(connection) shouldEqual Some("""{"id":"1","type":"next","payload":{"data":{"ticks":"tick"}}}""")
+      connection.cancel()
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("send pings while connections are idle") {
+      implicit val actorSystem: ActorSystem = ActorSystem("graphQLWebSocketKeepAliveSpec")
+      val connection                        = open(serve(GraphQLWebSocket.Settings(keepAlive = 100.millis)), init)
+
+      pull(connection) shouldEqual Some("""{"type":"connection_ack"}""")
+      pull(connection) shouldEqual Some("""{"type":"ping"}""")
+      pull(connection) shouldEqual Some("""{"type":"ping"}""")
+      connection.cancel()
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("answer queries with a single result") {
+      implicit val actorSystem: ActorSystem = ActorSystem("graphQLWebSocketQuerySpec")
+      val connection                        =
+        connect(init, subscribe("1", "{ version }"), subscribe("2", "{ unknown }"))
+
+      pull(connection) shouldEqual Some("""{"type":"connection_ack"}""")
+      val messages = List.fill(3)(pull(connection).get)
+      messages should contain allOf (
+        """{"id":"1","type":"next","payload":{"data":{"version":"1.0"}}}""",
+        """{"id":"1","type":"complete"}"""
+      )
+      messages.filter(_.contains(""""id":"2"""")).map(_.contains(""""type":"error"""")) shouldEqual List(true)
+      connection.cancel()
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("close connections breaking the protocol") {
+      implicit val actorSystem: ActorSystem = ActorSystem("graphQLWebSocketProtocolSpec")
+
+      pull(connect(subscribe("1", "{ version }"))) shouldEqual None
+      pull(connect("not json")) shouldEqual None
+
+      val duplicate = connect(init, subscribe("1", "subscription { ticks }"), subscribe("1", "{ version }"))
+      Iterator.continually(pull(duplicate)).takeWhile(_.nonEmpty).size should be < 100
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+
+    it("stop producing the events of clients that do not read them") {
+      implicit val actorSystem: ActorSystem = ActorSystem("graphQLWebSocketLoadSpec")
+      val settings                          = GraphQLWebSocket.Settings(bufferSize = 4)
+
+      // in-process, a connection only holds the buffer of its operation and those of the stages in between
+      val inProcess  = new AtomicLong()
+      val connection = messages(Seq(init, subscribe("1", "subscription { ticks }")))
+        .via(GraphQLWebSocket.flow(ticker(inProcess), settings))
+        .runWith(Sink.queue())
+      pull(connection) shouldEqual Some("""{"type":"connection_ack"}""")
+      pull(connection).get should include("tick")
+      settled(inProcess) should be < 100L
+      connection.cancel()
+
+      // over the network, every subscription is infinite, only the buffers of each connection and socket fill up
+      val produced    = new AtomicLong()
+      val port        = serve(settings, ticker(produced))
+      val count       = 200
+      val connections = List.fill(count)(open(port, init, subscribe("1", "subscription { ticks }")))
+      connections.foreach(pull(_) shouldEqual Some("""{"type":"connection_ack"}"""))
+      connections.foreach(pull(_).get should include("tick"))
+      val total       = settled(produced)
+      Thread.sleep(500)
+      produced.get() shouldEqual total
+      connections.foreach(_.cancel())
+      Await.result(actorSystem.terminate(), Duration.Inf)
+    }
+  }
+
+  // the number of events produced once the subscriptions are held back by their slow clients
+  private def settled(produced: AtomicLong): Long = {
+    val deadline = 10.seconds.fromNow
+    var previous = -1L
+    var current  = produced.get()
+    while (current != previous && deadline.hasTimeLeft()) {
+      Thread.sleep(200)
+      previous = current
+      current = produced.get()
+    }
+    current
+  }
+}
@@ -0,0 +1,88 @@
+package symphony.server
+
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.*
+
+import spray.json.*
+import symphony.*
+import symphony.parser.*
+import symphony.parser.SymphonyQLError.ExecutionError
+import symphony.parser.adt.LocationInfo
+
+class JsonOutputWriterSpec extends AnyFunSpec with Matchers with JsonFormats {
+
+  private val response: SymphonyQLResponse[SymphonyQLError] = SymphonyQLResponse(
+    SymphonyQLOutputValue.ObjectValue(
+      List(
+        "characters" -> SymphonyQLOutputValue.ListValue(
+          List(
+            SymphonyQLOutputValue.ObjectValue(
+              List(
+                "name"     -> SymphonyQLValue.StringValue("Naomi Nagata"),
+                "origin"   -> SymphonyQLValue.EnumValue("BELT"),
+                "age"      -> SymphonyQLValue.IntValue(32),
+                "height"   -> SymphonyQLValue.FloatValue(1.8),
+                "captain"  -> SymphonyQLValue.BooleanValue(false),
+                "ship"     -> SymphonyQLValue.NullValue,
+                "missions" -> SymphonyQLOutputValue.ListValue(Nil),
+                "role"     -> SymphonyQLOutputValue.ObjectValue(Nil)
+              )
+            )
+          )
+        )
+      )
+    ),
+    List(
+      ExecutionError(
+        "failed",
+        List(SymphonyQLPathValue.Key("characters"), SymphonyQLPathValue.Index(0)),
+        Some(LocationInfo(1, 2))
+      )
+    )
+  )
+
+  describe("JsonOutputWriter Spec") {
+
+    it("write the same JSON as JsonFormats") {
+      val json = JsonOutputWriter.write(response.toOutputValue).utf8String
+
+      json.parseJson shouldEqual response.toJson
+    }
+
+    it("escape strings") {
+      val value = "quote \" backslash \\ tab \t newline \n control \u0001 é € 𝄞 lone \ud800"
+      val json  = JsonOutputWriter.write(SymphonyQLValue.StringValue(value)).utf8String
+
+      json shouldEqual "\"quote \\\" backslash \\\\ tab \\t newline \\n control \\u0001 é € 𝄞 lone \\ud800\""
+    }
+
+    it("write numbers") {
+      val value = SymphonyQLOutputValue.ListValue(
+        List(
+          SymphonyQLValue.IntValue(0),
+          SymphonyQLValue.IntValue(-42),
+          SymphonyQLValue.IntValue(Int.MinValue),
+          SymphonyQLValue.IntValue(Long.MaxValue),
+          SymphonyQLValue.IntValue(Long.MinValue),
+          SymphonyQLValue.IntValue(BigInt("123456789012345678901234567890")),
+          SymphonyQLValue.FloatValue(0.5),
+          SymphonyQLValue.FloatValue(Double.NaN),
+          SymphonyQLValue.FloatValue(BigDecimal("1.25"))
+        )
+      )
+
+      JsonOutputWriter.write(value).utf8String shouldEqual
+        "[0,-42,-2147483648,9223372036854775807,-9223372036854775808,123456789012345678901234567890,0.5,null,1.25]"
+    }
+
+    it("split large values into chunks") {
+      val value  = SymphonyQLOutputValue.ListValue(List.fill(100)(response.toOutputValue))
+      val chunks = JsonOutputWriter.chunks(value, chunkSize = 64).toList
+
+      chunks.size should be > 1
+      all(chunks.map(_.size)) should be <= 64
+      chunks.reduce(_ ++ _) shouldEqual JsonOutputWriter.write(value)
+      chunks.reduce(_ ++ _).utf8String.parseJson shouldEqual (value: SymphonyQLOutputValue).toJson
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package symphony.server
+
+import org.apache.pekko.util.ByteString
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.*
+
+import spray.json.*
+import symphony.*
+import symphony.parser.*
+import symphony.parser.SymphonyQLValue.*
+
+class JsonRequestReaderSpec extends AnyFunSpec with Matchers with JsonFormats {
+
+  private def read(json: String, maxDepth: Int = JsonRequestReader.DefaultMaxDepth): SymphonyQLRequest =
+    JsonRequestReader.read(ByteString(json), maxDepth)
+
+  describe("JsonRequestReader Spec") {
+
+    it("read the same request as JsonFormats") {
+      val json =
+        """{
+          |  "query": "query Q($input: Input) { create(input: $input) }",
+          |  "operationName": "Q",
+          |  "variables": {"input": {"name": "Amos", "tags": ["a", "b"], "age": 42, "active": true, "ship": null}},
+          |  "extensions": {"persistedQuery": {"version": 1}},
+          |  "ignored": [{"nested": [1, 2, 3]}]
+          |}""".stripMargin
+
+      read(json).toString shouldEqual symphonyQLRequestJsonFormat.read(json.parseJson).toString
+    }
+
+    it("read null and missing fields as None") {
+      read("""{"query": "{ a }", "operationName": null, "variables": null}""") shouldEqual SymphonyQLRequest("{ a }")
+    }
+
+    it("read persisted query requests without a query") {
+      val request = read("""{"extensions": {"persistedQuery": {"version": 1, "sha256Hash": "abc"}}}""")
+
+      request.query shouldEqual ""
+      request.extensions.flatMap(_.get("persistedQuery")) should not be empty
+    }
+
+    it("read trusted operation ids") {
+      read("""{"id": "version", "variables": {}}""") shouldEqual
+        SymphonyQLRequest("", variables = Some(Map.empty), operationId = Some("version"))
+    }
+
+    it("decode strings") {
+      val request = read("{\"query\": \"tab\\t quote\\\" slash\\/ unicode\\u00e9 pair\\ud834\\udd1e raw é €\"}")
+
+      request.query shouldEqual "tab\t quote\" slash/ unicodeé pair𝄞 raw é €"
+    }
+
+    it("decode numbers by size") {
+      val variables = read(
+        """{"query": "{ a }", "variables": {"int": -42, "long": 3000000000, "big": 123456789012345678901234567890,
+          |"zero": 0, "decimal": 1.25, "exponent": 1e3}}""".stripMargin
+      ).variables.get
+
+      variables("int") shouldEqual IntValue.IntNumber(-42)
+      variables("long") shouldEqual IntValue.LongNumber(3000000000L)
+      variables("big") shouldEqual IntValue.BigIntNumber(BigInt("123456789012345678901234567890"))
+      variables("zero") shouldEqual IntValue.IntNumber(0)
+      variables("decimal") shouldEqual FloatValue.BigDecimalNumber(BigDecimal("1.25"))
+      variables("exponent") shouldEqual FloatValue.BigDecimalNumber(BigDecimal("1e3"))
+    }
+
+    it("read large lists of variables") {
+      val items    = List.tabulate(10000)(i => s"""{"id": $i, "name": "item-$i"}""").mkString("[", ",", "]")
+      val variable = read(s"""{"query": "{ a }", "variables": {"items": $items}}""").variables.get("items")
+
+      variable match
+        case SymphonyQLInputValue.ListValue(values) =>
+          values.size shouldEqual 10000
+          values.last shouldEqual SymphonyQLInputValue.ObjectValue(
+            Map("id" -> IntValue(9999), "name" -> StringValue("item-9999"))
+          )
+        case other                                  => fail(s"unexpected $other")
+    }
+
+    it("read batches of requests") {
+      def readBatch(json: String) = JsonRequestReader.readBatch(ByteString(json), maxBatchSize = 2)
+
+      readBatch("""{"query": "{ a }"}""") shouldEqual Left(SymphonyQLRequest("{ a }"))
+      readBatch(""" [{"query": "{ a }"}, {"query": "{ b }", "operationName": "B"}] """) shouldEqual
+        Right(List(SymphonyQLRequest("{ a }"), SymphonyQLRequest("{ b }", Some("B"))))
+      an[SymphonyQLError.ArgumentError] should be thrownBy readBatch("[]")
+      an[SymphonyQLError.ArgumentError] should be thrownBy readBatch("""[{"query": "{ a }"}, 1]""")
+      an[SymphonyQLError.ArgumentError] should be thrownBy
+        readBatch("""[{"query": "{ a }"}, {"query": "{ b }"}, {"query": "{ c }"}]""")
+    }
+
+    it("reject values nested too deeply") {
+      val nested = "[" * 10 + "]" * 10
+
+      read(s"""{"query": "{ a }", "variables": {"a": $nested}}""", maxDepth = 12).variables should not be empty
+      an[SymphonyQLError.ArgumentError] should be thrownBy
+        read(s"""{"query": "{ a }", "variables": {"a": $nested}}""", maxDepth = 11)
+    }
+
+    it("reject malformed bodies") {
+      an[SymphonyQLError.ArgumentError] should be thrownBy read("""{"query": "{ a }",}""")
+      an[SymphonyQLError.ArgumentError] should be thrownBy read("""{"query": "{ a }"} trailing""")
+      an[SymphonyQLError.ArgumentError] should be thrownBy read("""{"query": "{ a }", "variables": {"a": 01}}""")
+      an[SymphonyQLError.ArgumentError] should be thrownBy read("""{"query": "{ a }""")
+      an[SymphonyQLError.ArgumentError] should be thrownBy read("""{"operationName": "Q"}""")
+    }
+  }
+}
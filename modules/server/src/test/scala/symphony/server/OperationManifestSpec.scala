@@ -0,0 +1,32 @@
+package symphony.server
+
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.*
+
+class OperationManifestSpec extends AnyFunSpec with Matchers {
+
+  describe("OperationManifest Spec") {
+
+    it("read a map of ids to queries") {
+      OperationManifest.parse("""{"version": "{ version }", "crew": "{ crew { name } }"}""") shouldEqual
+        Map("version" -> "{ version }", "crew" -> "{ crew { name } }")
+    }
+
+    it("read an Apollo persisted query manifest") {
+      val json =
+        """{
+          |  "format": "apollo-persisted-query-manifest",
+          |  "version": 1,
+          |  "operations": [{"id": "abc", "name": "Version", "type": "query", "body": "query Version { version }"}]
+          |}""".stripMargin
+
+      OperationManifest.parse(json) shouldEqual Map("abc" -> "query Version { version }")
+    }
+
+    it("reject malformed manifests") {
+      an[IllegalArgumentException] should be thrownBy OperationManifest.parse("""{"version": 1}""")
+      an[IllegalArgumentException] should be thrownBy OperationManifest.parse("""{"operations": [{"id": "abc"}]}""")
+      an[IllegalArgumentException] should be thrownBy OperationManifest.parse("""["{ version }"]""")
+    }
+  }
+}
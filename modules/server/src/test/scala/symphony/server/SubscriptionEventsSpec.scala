@@ -0,0 +1,53 @@
+package symphony.server
+
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.*
+import symphony.parser.SymphonyQLOutputValue.*
+import symphony.parser.SymphonyQLValue.*
+
+class SubscriptionEventsSpec extends AnyFunSpec with Matchers {
+
+  describe("SubscriptionEvents Spec") {
+
+    it("render events as the data of a response") {
+      val event = ObjectValue(List("price" -> IntValue(42), "symbol" -> StringValue("ACME")))
+
+      SubscriptionEvents.data("ticks", event).utf8String shouldEqual
+        """{"data":{"ticks":{"price":42,"symbol":"ACME"}}}"""
+      SubscriptionEvents.dataText("tic\"ks", event) shouldEqual
+        """{"data":{"tic\"ks":{"price":42,"symbol":"ACME"}}}"""
+    }
+
+    it("render the response of an event with its errors") {
+      val event = EventValue(
+        ObjectValue(
+          List(
+            "data"   -> ObjectValue(List("ticks" -> NullValue)),
+            "errors" -> ListValue(List(ObjectValue(List("message" -> StringValue("lost")))))
+          )
+        )
+      )
+
+      SubscriptionEvents.dataText("ticks", event) shouldEqual
+        """{"data":{"ticks":null},"errors":[{"message":"lost"}]}"""
+    }
+
+    it("render an event once for all of its subscribers") {
+      val event = EventValue(ObjectValue(List("data" -> ObjectValue(List("ticks" -> StringValue("ACME"))))))
+
+      val rendered = SubscriptionEvents.data("ticks", event)
+      rendered.utf8String shouldEqual """{"data":{"ticks":"ACME"}}"""
+      List.fill(3)(SubscriptionEvents.data("ticks", event)).foreach(_ should be theSameInstanceAs rendered)
+      val text = SubscriptionEvents.dataText("ticks", event)
+      SubscriptionEvents.dataText("ticks", event) should be theSameInstanceAs text
+    }
+
+    it("never mistake an event for another one") {
+      val events = (1 to 10000).map(i => EventValue(ObjectValue(List("data" -> IntValue(i)))))
+
+      events.zipWithIndex.foreach { (event, i) =>
+        SubscriptionEvents.dataText("ticks", event) shouldEqual s"""{"data":${i + 1}}"""
+      }
+    }
+  }
+}
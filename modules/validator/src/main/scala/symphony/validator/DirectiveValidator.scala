@@ -1,3 +1,60 @@
 package symphony.validator
 
-object DirectiveValidator {}
+import symphony.parser.SymphonyQLValue.NullValue
+import symphony.parser.adt.Directive
+import symphony.parser.adt.introspection.*
+
+object DirectiveValidator extends ValidationRule {
+
+  override def enterDirectives(
+    context: ValidationContext,
+    directives: List[Directive],
+    location: __DirectiveLocation
+  ): Unit = {
+    directives.foreach { directive =>
+      context.schema.directives.get(directive.name) match
+        case None             =>
+          context.reportError(
+            s"Directive '${directive.name}' is not supported.",
+            "GraphQL servers define what directives they support. For each usage of a directive, the directive must be available on that server."
+          )
+        case Some(definition) =>
+          if (!definition.locations.contains(location))
+            context.reportError(
+              s"Directive '${directive.name}' is used in invalid location '$location'.",
+              "GraphQL servers define what directives they support and where they support them. For each usage of a directive, the directive must be used in a location that the server has declared support for."
+            )
+          val args = context.schema.directiveArgs.getOrElse(directive.name, Nil)
+          directive.arguments.keys
+            .filterNot(name => args.exists(_.name == name))
+            .foreach(name =>
+              context.reportError(
+                s"Argument '$name' is not defined on directive '${directive.name}'.",
+                "Every argument provided to a field or directive must be defined in the set of possible arguments of that field or directive."
+              )
+            )
+          args
+            .filter(arg => FieldValidator.isRequired(arg) && directive.arguments.get(arg.name).forall(_ == NullValue))
+            .foreach(arg =>
+              context.reportError(
+                s"Required argument '${arg.name}' is null or missing on directive '${directive.name}'.",
+                "Arguments can be required. An argument is required if the argument type is non-null and does not have a default value."
+              )
+            )
+    }
+    if (directives.lengthCompare(1) > 0)
+      directives
+        .groupBy(_.name)
+        .collect {
+          case (name, occurrences)
+              if occurrences.size > 1 && context.schema.directives.get(name).exists(!_.isRepeatable) =>
+            name
+        }
+        .foreach(name =>
+          context.reportError(
+            s"Directive '$name' is defined more than once in location '$location'.",
+            "For each usage of a directive, the directive must be uniquely named within the location it is used, unless the directive is repeatable."
+          )
+        )
+  }
+}
@@ -1,3 +1,75 @@
 package symphony.validator
 
-object FieldValidator {}
+import scala.collection.mutable
+
+import symphony.parser.SymphonyQLValue.NullValue
+import symphony.parser.adt.Selection
+import symphony.parser.adt.Selection.*
+import symphony.parser.adt.introspection.*
+
+object FieldValidator extends ValidationRule {
+  import ValidationSchema.*
+
+  override def enterField(
+    context: ValidationContext,
+    parentType: __Type,
+    field: Field,
+    definition: Option[__Field]
+  ): Unit =
+    definition match
+      case None             =>
+        context.reportError(
+          s"Field '${field.name}' does not exist on type '${typeName(parentType)}'.",
+          "The target field of a field selection must be defined on the scoped type of the selection set."
+        )
+      case Some(definition) =>
+        val fieldType = context.schema.namedType(definition._type)
+        if (isLeaf(fieldType) && field.selectionSet.nonEmpty)
+          context.reportError(
+            s"Field '${field.name}' of type '${typeName(definition._type)}' is a leaf and must not have a selection set.",
+            "Field selections on scalars or enums are never allowed, because they are the leaf nodes of any GraphQL operation."
+          )
+        else if (isComposite(fieldType) && field.selectionSet.isEmpty)
+          context.reportError(
+            s"Field '${field.name}' of type '${typeName(definition._type)}' must have a selection of subfields.",
+            "Leaf selections on objects, interfaces, and unions without subfields are disallowed."
+          )
+        val args      = definition.allArgs
+        field.arguments.keys
+          .filterNot(name => args.exists(_.name == name))
+          .foreach(name =>
+            context.reportError(
+              s"Argument '$name' is not defined on field '${field.name}' of type '${typeName(parentType)}'.",
+              "Every argument provided to a field or directive must be defined in the set of possible arguments of that field or directive."
+            )
+          )
+        args
+          .filter(arg => isRequired(arg) && field.arguments.get(arg.name).forall(_ == NullValue))
+          .foreach(arg =>
+            context.reportError(
+              s"Required argument '${arg.name}' is null or missing on field '${field.name}' of type '${typeName(parentType)}'.",
+              "Arguments can be required. An argument is required if the argument type is non-null and does not have a default value."
+            )
+          )
+
+  override def enterSelectionSet(context: ValidationContext, parentType: __Type, selectionSet: List[Selection]): Unit =
+    if (selectionSet.lengthCompare(1) > 0) {
+      val seen = mutable.HashMap.empty[String, Field]
+      selectionSet.foreach {
+        case field: Field =>
+          val responseKey = field.alias.getOrElse(field.name)
+          seen.get(responseKey) match
+            case None                                                                          => seen.update(responseKey, field)
+            case Some(other) if other.name != field.name || other.arguments != field.arguments =>
+              context.reportError(
+                s"Fields with response name '$responseKey' on type '${typeName(parentType)}' conflict because they select different fields or arguments.",
+                "If multiple field selections with the same response names are encountered during execution, the field and arguments to execute and the resulting value should be unambiguous."
+              )
+            case _                                                                             => ()
+        case _            => ()
+      }
+    }
+
+  private[validator] def isRequired(arg: __InputValue): Boolean =
+    arg._type.kind == __TypeKind.NON_NULL && arg.defaultValue.isEmpty
+}
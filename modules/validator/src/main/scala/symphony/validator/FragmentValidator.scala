@@ -1,3 +1,114 @@
 package symphony.validator
 
-object FragmentValidator {}
+import scala.collection.mutable
+
+import symphony.parser.adt.Definition.ExecutableDefinition.*
+import symphony.parser.adt.Selection.*
+import symphony.parser.adt.introspection.*
+
+object FragmentValidator extends ValidationRule {
+  import ValidationSchema.*
+
+  override def enterFragmentDefinition(context: ValidationContext, fragment: FragmentDefinition): Unit =
+    checkTypeCondition(context, fragment.typeCondition.name, s"Fragment '${fragment.name}'")
+
+  override def enterInlineFragment(context: ValidationContext, parentType: __Type, fragment: InlineFragment): Unit =
+    fragment.typeCondition.foreach { condition =>
+      if (checkTypeCondition(context, condition.name, "Inline fragment"))
+        checkSpreadIsPossible(context, parentType, condition.name, "Inline fragment")
+    }
+
+  override def enterFragmentSpread(context: ValidationContext, parentType: __Type, spread: FragmentSpread): Unit =
+    context.fragments.get(spread.name) match
+      case None           =>
+        context.reportError(
+          s"Fragment spread '${spread.name}' is not defined.",
+          "Named fragment spreads must refer to fragments defined within the document."
+        )
+      case Some(fragment) =>
+        if (context.schema.namedType(fragment.typeCondition.name).exists(isComposite))
+          checkSpreadIsPossible(context, parentType, fragment.typeCondition.name, s"Fragment spread '${spread.name}'")
+
+  override def leaveDocument(context: ValidationContext): Unit = {
+    val fragments = context.document.fragmentDefinitions
+    fragments
+      .groupBy(_.name)
+      .collect { case (name, occurrences) if occurrences.size > 1 => name }
+      .foreach(name =>
+        context.reportError(
+          s"Fragment '$name' is defined more than once.",
+          "Fragment definitions are referenced in fragment spreads by name. To avoid ambiguity, each fragment's name must be unique within a document."
+        )
+      )
+
+    val used = context.operations.flatMap { case (_, usages) => context.reachableFragments(usages) }.toSet
+    fragments
+      .filterNot(fragment => used.contains(fragment.name))
+      .foreach(fragment =>
+        context.reportError(
+          s"Fragment '${fragment.name}' is never used.",
+          "Defined fragments must be used within a document."
+        )
+      )
+
+    val checked = mutable.Set.empty[String]
+    fragments.foreach(fragment =>
+      if (!checked.contains(fragment.name) && hasCycle(context, fragment.name, Nil, checked))
+        context.reportError(
+          s"Fragment '${fragment.name}' forms a cycle.",
+          "The graph of fragment spreads must not form any cycles including spreading itself."
+        )
+    )
+  }
+
+  private def checkTypeCondition(context: ValidationContext, typeCondition: String, subject: String): Boolean =
+    context.schema.namedType(typeCondition) match
+      case None                           =>
+        context.reportError(
+          s"$subject targets an invalid type: '$typeCondition'.",
+          "Fragments must be specified on types that exist in the schema."
+        )
+        false
+      case Some(tpe) if !isComposite(tpe) =>
+        context.reportError(
+          s"$subject is defined on invalid type '$typeCondition'.",
+          "Fragments can only be declared on unions, interfaces, and objects."
+        )
+        false
+      case _                              => true
+
+  private def checkSpreadIsPossible(
+    context: ValidationContext,
+    parentType: __Type,
+    typeCondition: String,
+    subject: String
+  ): Unit = {
+    val schema = context.schema
+    val parent = schema.possibleTypes(schema.namedType(parentType))
+    val target = schema.namedType(typeCondition).fold(Set.empty[String])(schema.possibleTypes)
+    if (!parent.exists(target.contains))
+      context.reportError(
+        s"$subject on type '$typeCondition' can never be applied to type '${typeName(parentType)}'.",
+        "Fragments are declared on a type and will only apply when the runtime object type matches the type condition."
+      )
+  }
+
+  /**
+   * Follows spreads depth first, marking every fragment it finishes so that each one is explored at most once.
+   */
+  private def hasCycle(
+    context: ValidationContext,
+    name: String,
+    path: List[String],
+    checked: mutable.Set[String]
+  ): Boolean =
+    if (path.contains(name)) true
+    else if (checked.contains(name)) false
+    else {
+      val cycle = context
+        .usages(name)
+        .exists(_.spreads.exists(spread => hasCycle(context, spread, name :: path, checked)))
+      checked += name
+      cycle
+    }
+}
@@ -0,0 +1,59 @@
+package symphony.validator
+
+import scala.collection.mutable
+
+import symphony.parser.adt.*
+import symphony.parser.adt.Definition.ExecutableDefinition.*
+import symphony.parser.adt.Selection.*
+
+object OperationValidator extends ValidationRule {
+
+  override def enterOperation(context: ValidationContext, operation: OperationDefinition): Unit = {
+    if (context.schema.rootType(operation.operationType).isEmpty)
+      context.reportError(
+        s"${operation.operationType} operations are not supported on this schema.",
+        "The operation type must be defined in the schema."
+      )
+    if (operation.operationType == OperationType.Subscription) {
+      val rootFields = responseKeys(context, operation.selectionSet, mutable.Set.empty)
+      if (rootFields.size > 1)
+        context.reportError(
+          s"Subscription '${operation.name.getOrElse("")}' has more than one root field.",
+          "Subscription operations must have exactly one root field."
+        )
+    }
+  }
+
+  override def leaveDocument(context: ValidationContext): Unit = {
+    val operations = context.document.operationDefinitions
+    operations
+      .flatMap(_.name)
+      .groupBy(identity)
+      .collect { case (name, occurrences) if occurrences.size > 1 => name }
+      .foreach(name =>
+        context.reportError(
+          s"Multiple operations have the same name: $name.",
+          "Each named operation definition must be unique within a document when referred to by its name."
+        )
+      )
+    if (operations.size > 1 && operations.exists(_.name.isEmpty))
+      context.reportError(
+        "An anonymous operation must be the only defined operation.",
+        "GraphQL allows a short-hand form for defining query operations when only that one operation exists in the document."
+      )
+  }
+
+  private def responseKeys(
+    context: ValidationContext,
+    selectionSet: List[Selection],
+    visited: mutable.Set[String]
+  ): Set[String] =
+    selectionSet.flatMap {
+      case field: Field           => Set(field.alias.getOrElse(field.name))
+      case spread: FragmentSpread =>
+        if (visited.add(spread.name))
+          context.fragments.get(spread.name).fold(Set.empty)(f => responseKeys(context, f.selectionSet, visited))
+        else Set.empty
+      case inline: InlineFragment => responseKeys(context, inline.selectionSet, visited)
+    }.toSet
+}
@@ -0,0 +1,69 @@
+package symphony.validator
+
+import scala.collection.mutable
+
+import symphony.parser.SymphonyQLError.ValidationError
+import symphony.parser.adt.*
+import symphony.parser.adt.Definition.ExecutableDefinition.*
+import symphony.parser.adt.introspection.__Type
+
+/**
+ * A variable referenced by a value, with the type expected at that position.
+ */
+final case class VariableUsage(name: String, expectedType: Option[__Type], hasLocationDefault: Boolean)
+
+/**
+ * What one operation or fragment definition references directly. Rules that need transitive information combine them
+ * through [[ValidationContext.reachableFragments]] rather than walking fragments again.
+ */
+final class DefinitionUsages {
+  val variables: mutable.ListBuffer[VariableUsage] = mutable.ListBuffer.empty
+  val spreads: mutable.LinkedHashSet[String]       = mutable.LinkedHashSet.empty
+}
+
+/**
+ * State of a single [[Validator.validate]] call, shared by all rules.
+ */
+final class ValidationContext(val schema: ValidationSchema, val document: Document) {
+
+  lazy val fragments: Map[String, FragmentDefinition] =
+    document.fragmentDefinitions.map(f => f.name -> f).toMap
+
+  private val _errors = mutable.ListBuffer.empty[ValidationError]
+
+  private[validator] val operationUsages = mutable.ListBuffer.empty[(OperationDefinition, DefinitionUsages)]
+  private[validator] val fragmentUsages  = mutable.HashMap.empty[String, DefinitionUsages]
+  private[validator] var current         = new DefinitionUsages
+
+  def reportError(msg: String, explanatoryText: String): Unit =
+    _errors += ValidationError(msg, explanatoryText)
+
+  def errors: List[ValidationError] = _errors.toList
+
+  def usages(fragmentName: String): Option[DefinitionUsages] = fragmentUsages.get(fragmentName)
+
+  def operations: List[(OperationDefinition, DefinitionUsages)] = operationUsages.toList
+
+  /**
+   * All fragments reachable from the given definition, through any number of spreads.
+   */
+  def reachableFragments(usages: DefinitionUsages): Set[String] = {
+    val visited = mutable.LinkedHashSet.empty[String]
+    val stack   = mutable.Stack.from(usages.spreads)
+    while (stack.nonEmpty) {
+      val name = stack.pop()
+      if (visited.add(name)) fragmentUsages.get(name).foreach(u => stack.pushAll(u.spreads))
+    }
+    visited.toSet
+  }
+
+  private[validator] def enterOperation(operation: OperationDefinition): Unit = {
+    current = new DefinitionUsages
+    operationUsages += operation -> current
+  }
+
+  private[validator] def enterFragment(fragment: FragmentDefinition): Unit = {
+    current = new DefinitionUsages
+    if (!fragmentUsages.contains(fragment.name)) fragmentUsages.update(fragment.name, current)
+  }
+}
@@ -0,0 +1,55 @@
+package symphony.validator
+
+import symphony.parser.SymphonyQLInputValue
+import symphony.parser.adt.*
+import symphony.parser.adt.Definition.ExecutableDefinition.*
+import symphony.parser.adt.Selection.*
+import symphony.parser.adt.introspection.*
+
+/**
+ * A set of validation rules, called back by [[Validator]] while it walks a document once.
+ *
+ * Every hook is a no-op by default so that a rule only overrides the nodes it cares about. Rules keep no state of their
+ * own: anything that has to outlive a single callback lives in the [[ValidationContext]].
+ */
+trait ValidationRule {
+
+  def enterOperation(context: ValidationContext, operation: OperationDefinition): Unit = ()
+
+  def enterFragmentDefinition(context: ValidationContext, fragment: FragmentDefinition): Unit = ()
+
+  def enterSelectionSet(context: ValidationContext, parentType: __Type, selectionSet: List[Selection]): Unit = ()
+
+  /**
+   * @param definition
+   *   the schema field the selection refers to, if the parent type has one with that name
+   */
+  def enterField(context: ValidationContext, parentType: __Type, field: Field, definition: Option[__Field]): Unit =
+    ()
+
+  def enterFragmentSpread(context: ValidationContext, parentType: __Type, spread: FragmentSpread): Unit = ()
+
+  def enterInlineFragment(context: ValidationContext, parentType: __Type, fragment: InlineFragment): Unit = ()
+
+  def enterDirectives(
+    context: ValidationContext,
+    directives: List[Directive],
+    location: __DirectiveLocation
+  ): Unit = ()
+
+  /**
+   * Called for every argument, variable default and nested list item or input field value.
+   *
+   * @param expectedType
+   *   the input type required at this position, if it is known
+   */
+  def enterValue(context: ValidationContext, value: SymphonyQLInputValue, expectedType: Option[__Type]): Unit = ()
+
+  def leaveDocument(context: ValidationContext): Unit = ()
+}
+
+object ValidationRule {
+
+  val all: List[ValidationRule] =
+    List(OperationValidator, FieldValidator, FragmentValidator, VariableValidator, DirectiveValidator, ValueValidator)
+}
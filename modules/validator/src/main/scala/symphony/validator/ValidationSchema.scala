@@ -0,0 +1,130 @@
+package symphony.validator
+
+import java.util.concurrent.atomic.AtomicLong
+
+import scala.collection.concurrent.TrieMap
+
+import symphony.parser.adt.OperationType
+import symphony.parser.adt.Type
+import symphony.parser.adt.introspection.*
+
+/**
+ * The parts of a schema that validation needs, with per-type lookups memoized so that they are computed once per
+ * schema instead of once per document.
+ */
+final class ValidationSchema(
+  val queryType: __Type,
+  val mutationType: Option[__Type],
+  val subscriptionType: Option[__Type],
+  schemaTypes: Map[String, __Type],
+  directiveList: List[__Directive]
+) {
+  import ValidationSchema.*
+
+  /**
+   * Distinguishes this schema from every other instance, so that validation results can be cached across schemas.
+   */
+  val version: Long = versions.incrementAndGet()
+
+  val directives: Map[String, __Directive] = directiveList.map(d => d.name -> d).toMap
+
+  val directiveArgs: Map[String, List[__InputValue]] =
+    directives.map { case (name, directive) => name -> directive.args(__DeprecatedArgs(Some(true))) }
+
+  // scalars only referenced by directive arguments (e.g. Boolean for @skip) can still be used by variables
+  val types: Map[String, __Type] =
+    directiveArgs.values.flatten.map(arg => innerType(arg._type)).foldLeft(schemaTypes) { (types, tpe) =>
+      tpe.name.filterNot(types.contains).fold(types)(name => types.updated(name, tpe))
+    }
+
+  private val fieldsCache        = TrieMap.empty[String, Map[String, __Field]]
+  private val inputFieldsCache   = TrieMap.empty[String, Map[String, __InputValue]]
+  private val possibleTypesCache = TrieMap.empty[String, Set[String]]
+  private val enumValuesCache    = TrieMap.empty[String, Set[String]]
+
+  def rootType(operationType: OperationType): Option[__Type] =
+    operationType match
+      case OperationType.Query        => Some(queryType)
+      case OperationType.Mutation     => mutationType
+      case OperationType.Subscription => subscriptionType
+
+  /**
+   * The named type at the bottom of any list and non-null wrappers, as registered in the schema.
+   */
+  def namedType(tpe: __Type): __Type = {
+    val inner = innerType(tpe)
+    inner.name.flatMap(types.get).getOrElse(inner)
+  }
+
+  def namedType(name: String): Option[__Type] = types.get(name)
+
+  /**
+   * Converts a type reference from a document into a schema type, if every named type in it exists.
+   */
+  def typeFromAst(tpe: Type): Option[__Type] =
+    tpe match
+      case Type.NamedType(name, nonNull)  => types.get(name).map(t => if (nonNull) t.nonNull else t)
+      case Type.ListType(ofType, nonNull) =>
+        typeFromAst(ofType).map(t => if (nonNull) t.list.nonNull else t.list)
+
+  def field(parentType: __Type, name: String): Option[__Field] =
+    if (name == TypeNameField.name && isComposite(parentType)) Some(TypeNameField)
+    else
+      fieldsCache
+        .getOrElseUpdate(
+          parentType.name.getOrElse(""),
+          parentType.allFields.map(f => f.name -> f).toMap
+        )
+        .get(name)
+
+  def inputFields(tpe: __Type): Map[String, __InputValue] = {
+    val named = namedType(tpe)
+    inputFieldsCache.getOrElseUpdate(named.name.getOrElse(""), named.allInputFields.map(f => f.name -> f).toMap)
+  }
+
+  def enumValues(tpe: __Type): Set[String] =
+    enumValuesCache.getOrElseUpdate(
+      tpe.name.getOrElse(""),
+      tpe.enumValues(__DeprecatedArgs(Some(true))).getOrElse(Nil).map(_.name).toSet
+    )
+
+  def possibleTypes(tpe: __Type): Set[String] =
+    tpe.kind match
+      case __TypeKind.OBJECT                       => tpe.name.toSet
+      case __TypeKind.INTERFACE | __TypeKind.UNION =>
+        possibleTypesCache.getOrElseUpdate(
+          tpe.name.getOrElse(""),
+          tpe.possibleTypes.getOrElse(Nil).flatMap(t => possibleTypes(namedType(t))).toSet
+        )
+      case _                                       => Set.empty
+}
+
+object ValidationSchema {
+
+  private val versions = new AtomicLong(0L)
+
+  private[validator] val TypeNameField: __Field =
+    __Field(
+      "__typename",
+      None,
+      _ => Nil,
+      () => __Type(__TypeKind.SCALAR, Some("String")).nonNull
+    )
+
+  def innerType(tpe: __Type): __Type = tpe.ofType.fold(tpe)(innerType)
+
+  def isComposite(tpe: __Type): Boolean =
+    tpe.kind == __TypeKind.OBJECT || tpe.kind == __TypeKind.INTERFACE || tpe.kind == __TypeKind.UNION
+
+  def isLeaf(tpe: __Type): Boolean =
+    tpe.kind == __TypeKind.SCALAR || tpe.kind == __TypeKind.ENUM
+
+  def isInputType(tpe: __Type): Boolean =
+    isLeaf(tpe) || tpe.kind == __TypeKind.INPUT_OBJECT
+
+  def typeName(tpe: __Type): String =
+    tpe.kind match
+      case __TypeKind.NON_NULL => tpe.ofType.fold("")(typeName) + "!"
+      case __TypeKind.LIST     => tpe.ofType.fold("")(t => s"[${typeName(t)}]")
+      case _                   => tpe.name.getOrElse("")
+}
@@ -1,3 +1,136 @@
 package symphony.validator
 
-object Validator {}
+import symphony.parser.SymphonyQLError.ValidationError
+import symphony.parser.SymphonyQLInputValue
+import symphony.parser.SymphonyQLInputValue.*
+import symphony.parser.adt.*
+import symphony.parser.adt.Definition.ExecutableDefinition.*
+import symphony.parser.adt.Selection.*
+import symphony.parser.adt.introspection.*
+
+/**
+ * Validates executable documents against a schema.
+ *
+ * The document is walked once, whatever the number of rules: each node is handed to every rule before moving on.
+ * Fragment definitions are visited where they are defined rather than at every spread, so checks that span several
+ * definitions (variables used through fragments, fragment cycles) are done by the rules at the end of the walk, from the
+ * usages recorded in the [[ValidationContext]].
+ */
+object Validator {
+  import ValidationSchema.*
+
+  def validate(
+    document: Document,
+    schema: ValidationSchema,
+    rules: List[ValidationRule] = ValidationRule.all
+  ): List[ValidationError] = {
+    val context = new ValidationContext(schema, document)
+    val visitor = new Visitor(context, rules)
+    document.definitions.foreach {
+      case operation: OperationDefinition => visitor.visitOperation(operation)
+      case fragment: FragmentDefinition   => visitor.visitFragment(fragment)
+      case _                              =>
+        context.reportError(
+          "Type system definitions are not executable.",
+          "A document containing TypeSystemDefinition is invalid for execution."
+        )
+    }
+    rules.foreach(_.leaveDocument(context))
+    context.errors
+  }
+
+  private final class Visitor(context: ValidationContext, rules: List[ValidationRule]) {
+    private val schema = context.schema
+
+    def visitOperation(operation: OperationDefinition): Unit = {
+      context.enterOperation(operation)
+      rules.foreach(_.enterOperation(context, operation))
+      visitDirectives(
+        operation.directives,
+        operation.operationType match
+          case OperationType.Query        => __DirectiveLocation.QUERY
+          case OperationType.Mutation     => __DirectiveLocation.MUTATION
+          case OperationType.Subscription => __DirectiveLocation.SUBSCRIPTION
+      )
+      operation.variableDefinitions.foreach { variable =>
+        visitDirectives(variable.directives, __DirectiveLocation.VARIABLE_DEFINITION)
+        variable.defaultValue.foreach(visitValue(_, schema.typeFromAst(variable.variableType), hasDefault = false))
+      }
+      schema.rootType(operation.operationType).foreach(visitSelectionSet(_, operation.selectionSet))
+    }
+
+    def visitFragment(fragment: FragmentDefinition): Unit = {
+      context.enterFragment(fragment)
+      rules.foreach(_.enterFragmentDefinition(context, fragment))
+      visitDirectives(fragment.directives, __DirectiveLocation.FRAGMENT_DEFINITION)
+      schema
+        .namedType(fragment.typeCondition.name)
+        .filter(isComposite)
+        .foreach(visitSelectionSet(_, fragment.selectionSet))
+    }
+
+    private def visitSelectionSet(parentType: __Type, selectionSet: List[Selection]): Unit = {
+      rules.foreach(_.enterSelectionSet(context, parentType, selectionSet))
+      selectionSet.foreach {
+        case field: Field           =>
+          val definition = schema.field(parentType, field.name)
+          rules.foreach(_.enterField(context, parentType, field, definition))
+          visitDirectives(field.directives, __DirectiveLocation.FIELD)
+          visitArguments(field.arguments, definition.fold(Nil)(_.allArgs))
+          if (field.selectionSet.nonEmpty)
+            definition
+              .map(d => schema.namedType(d._type))
+              .filter(isComposite)
+              .foreach(visitSelectionSet(_, field.selectionSet))
+        case spread: FragmentSpread =>
+          context.current.spreads += spread.name
+          rules.foreach(_.enterFragmentSpread(context, parentType, spread))
+          visitDirectives(spread.directives, __DirectiveLocation.FRAGMENT_SPREAD)
+        case inline: InlineFragment =>
+          rules.foreach(_.enterInlineFragment(context, parentType, inline))
+          visitDirectives(inline.dirs, __DirectiveLocation.INLINE_FRAGMENT)
+          inline.typeCondition
+            .fold(Option(parentType))(condition => schema.namedType(condition.name))
+            .filter(isComposite)
+            .foreach(visitSelectionSet(_, inline.selectionSet))
+      }
+    }
+
+    private def visitDirectives(directives: List[Directive], location: __DirectiveLocation): Unit =
+      if (directives.nonEmpty) {
+        rules.foreach(_.enterDirectives(context, directives, location))
+        directives.foreach(directive =>
+          visitArguments(directive.arguments, schema.directiveArgs.getOrElse(directive.name, Nil))
+        )
+      }
+
+    private def visitArguments(arguments: Map[String, SymphonyQLInputValue], definitions: List[__InputValue]): Unit =
+      arguments.foreach { case (name, value) =>
+        val definition = definitions.find(_.name == name)
+        visitValue(value, definition.map(_._type), definition.exists(_.defaultValue.isDefined))
+      }
+
+    private def visitValue(value: SymphonyQLInputValue, expectedType: Option[__Type], hasDefault: Boolean): Unit = {
+      rules.foreach(_.enterValue(context, value, expectedType))
+      value match
+        case VariableValue(name) =>
+          context.current.variables += VariableUsage(name, expectedType, hasDefault)
+        case ListValue(values)   =>
+          val itemType = expectedType.flatMap(listItemType)
+          values.foreach(visitValue(_, itemType, hasDefault = false))
+        case ObjectValue(fields) =>
+          val inputFields = expectedType.map(schema.inputFields).getOrElse(Map.empty)
+          fields.foreach { case (name, fieldValue) =>
+            val definition = inputFields.get(name)
+            visitValue(fieldValue, definition.map(_._type), definition.exists(_.defaultValue.isDefined))
+          }
+        case _                   => ()
+    }
+
+    private def listItemType(tpe: __Type): Option[__Type] =
+      tpe.kind match
+        case __TypeKind.NON_NULL => tpe.ofType.flatMap(listItemType)
+        case __TypeKind.LIST     => tpe.ofType
+        case _                   => None
+  }
+}
@@ -0,0 +1,79 @@
+package symphony.validator
+
+import symphony.parser.SymphonyQLInputValue
+import symphony.parser.SymphonyQLInputValue.*
+import symphony.parser.SymphonyQLValue.*
+import symphony.parser.adt.introspection.*
+
+/**
+ * Checks literal values against the input type expected where they appear. Lists and input objects are only checked at
+ * their own level, their items and fields are handed to the rule separately by [[Validator]].
+ */
+object ValueValidator extends ValidationRule {
+  import ValidationSchema.*
+
+  override def enterValue(context: ValidationContext, value: SymphonyQLInputValue, expectedType: Option[__Type]): Unit =
+    expectedType.foreach(check(context, value, _))
+
+  private def check(context: ValidationContext, value: SymphonyQLInputValue, expectedType: __Type): Unit =
+    value match
+      case _: VariableValue => ()
+      case NullValue        =>
+        if (expectedType.kind == __TypeKind.NON_NULL)
+          invalid(context, value, expectedType)
+      case _                =>
+        expectedType.kind match
+          case __TypeKind.NON_NULL     => expectedType.ofType.foreach(check(context, value, _))
+          case __TypeKind.LIST         =>
+            value match
+              case _: ListValue => ()
+              case _            => expectedType.ofType.foreach(check(context, value, _))
+          case __TypeKind.SCALAR       =>
+            if (!isValidScalar(value, expectedType.name.getOrElse("")))
+              invalid(context, value, expectedType)
+          case __TypeKind.ENUM         =>
+            value match
+              case EnumValue(name) if context.schema.enumValues(expectedType).contains(name) => ()
+              case _                                                                         =>
+                invalid(context, value, expectedType)
+          case __TypeKind.INPUT_OBJECT =>
+            value match
+              case ObjectValue(fields) =>
+                val inputFields = context.schema.inputFields(expectedType)
+                fields.keys
+                  .filterNot(inputFields.contains)
+                  .foreach(name =>
+                    context.reportError(
+                      s"Field '$name' is not defined on input type '${typeName(expectedType)}'.",
+                      "Every input field provided in an input object value must be defined in the set of possible fields of that input object's expected type."
+                    )
+                  )
+                inputFields.values
+                  .filter(field => FieldValidator.isRequired(field) && fields.get(field.name).forall(_ == NullValue))
+                  .foreach(field =>
+                    context.reportError(
+                      s"Required field '${field.name}' is null or missing on input type '${typeName(expectedType)}'.",
+                      "Input object fields may be required. An input field is required if it has a non-null type and does not have a default value."
+                    )
+                  )
+              case _                   => invalid(context, value, expectedType)
+          case _                       => ()
+
+  /**
+   * Only the built-in scalars are checked, custom scalars decide for themselves what literals they accept.
+   */
+  private def isValidScalar(value: SymphonyQLInputValue, name: String): Boolean =
+    name match
+      case "Int"     => value.isInstanceOf[IntValue.IntNumber]
+      case "Float"   => value.isInstanceOf[IntValue] || value.isInstanceOf[FloatValue]
+      case "String"  => value.isInstanceOf[StringValue]
+      case "Boolean" => value.isInstanceOf[BooleanValue]
+      case "ID"      => value.isInstanceOf[StringValue] || value.isInstanceOf[IntValue]
+      case _         => true
+
+  private def invalid(context: ValidationContext, value: SymphonyQLInputValue, expectedType: __Type): Unit =
+    context.reportError(
+      s"Value '${value.toInputString}' is not valid for type '${typeName(expectedType)}'.",
+      "Literal values must be compatible with the type expected in the position they are found."
+    )
+}
@@ -1,3 +1,84 @@
 package symphony.validator
 
-object VariableValidator {}
+import symphony.parser.SymphonyQLValue.NullValue
+import symphony.parser.adt.*
+import symphony.parser.adt.Definition.ExecutableDefinition.*
+import symphony.parser.adt.introspection.*
+
+object VariableValidator extends ValidationRule {
+  import ValidationSchema.*
+
+  override def enterOperation(context: ValidationContext, operation: OperationDefinition): Unit = {
+    operation.variableDefinitions
+      .groupBy(_.name)
+      .collect { case (name, occurrences) if occurrences.size > 1 => name }
+      .foreach(name =>
+        context.reportError(
+          s"Variable '$name' is defined more than once.",
+          "If any operation defines more than one variable with the same name, it is ambiguous and invalid."
+        )
+      )
+    operation.variableDefinitions.foreach { variable =>
+      val typeName = Type.innerType(variable.variableType)
+      if (!context.schema.namedType(typeName).exists(isInputType))
+        context.reportError(
+          s"Type of variable '${variable.name}' is not a valid input type: '$typeName'.",
+          "Variables can only be input types. Objects, unions, and interfaces cannot be used as inputs."
+        )
+    }
+  }
+
+  override def leaveDocument(context: ValidationContext): Unit =
+    context.operations.foreach { case (operation, usages) =>
+      val fragmentUsages = context.reachableFragments(usages).toList.flatMap(context.usages).flatMap(_.variables)
+      val allUsages      = usages.variables.toList ++ fragmentUsages
+      val operationName  = operation.name.fold("")(name => s" in operation '$name'")
+      val definitions    = operation.variableDefinitions.map(v => v.name -> v).toMap
+
+      allUsages.foreach { usage =>
+        definitions.get(usage.name) match
+          case None             =>
+            context.reportError(
+              s"Variable '${usage.name}' is not defined$operationName.",
+              "Variables are scoped on a per-operation basis. Any variable referenced within the context of an operation must be defined at the top level of that operation."
+            )
+          case Some(definition) =>
+            usage.expectedType.foreach { expectedType =>
+              if (!isUsageAllowed(definition, expectedType, usage.hasLocationDefault))
+                context.reportError(
+                  s"Variable '${usage.name}' of type '${definition.variableType}' used in position expecting type '${typeName(expectedType)}'$operationName.",
+                  "Variable usages must be compatible with the arguments they are passed to."
+                )
+            }
+      }
+
+      val used = allUsages.map(_.name).toSet
+      operation.variableDefinitions
+        .filterNot(variable => used.contains(variable.name))
+        .foreach(variable =>
+          context.reportError(
+            s"Variable '${variable.name}' is not used$operationName.",
+            "All variables defined by an operation must be used in that operation or a fragment transitively included by that operation."
+          )
+        )
+    }
+
+  private def isUsageAllowed(variable: VariableDefinition, locationType: __Type, hasLocationDefault: Boolean): Boolean =
+    if (locationType.kind == __TypeKind.NON_NULL && !variable.variableType.nonNull) {
+      val hasNonNullDefault = variable.defaultValue.exists(_ != NullValue)
+      (hasNonNullDefault || hasLocationDefault) && locationType.ofType.exists(
+        areTypesCompatible(variable.variableType, _)
+      )
+    } else areTypesCompatible(variable.variableType, locationType)
+
+  private def areTypesCompatible(variableType: Type, locationType: __Type): Boolean =
+    if (locationType.kind == __TypeKind.NON_NULL)
+      variableType.nonNull && locationType.ofType.exists(areTypesCompatible(variableType.toNullable, _))
+    else if (variableType.nonNull) areTypesCompatible(variableType.toNullable, locationType)
+    else
+      variableType match
+        case Type.ListType(ofType, _) =>
+          locationType.kind == __TypeKind.LIST && locationType.ofType.exists(areTypesCompatible(ofType, _))
+        case Type.NamedType(name, _)  =>
+          locationType.kind != __TypeKind.LIST && locationType.name.contains(name)
+}